@@ -0,0 +1,55 @@
+package com.rits.cloning;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+
+/**
+ * a precompiled description of how instances of a class are cloned. It is built once per class
+ * by the Cloner and contains only the instance fields that need to be copied, each one tagged
+ * with the action to take for it.
+ *
+ * Fields that are nulled (i.e. transient fields when nullTransient is set) are not part of the
+ * plan at all, since a new instance already has them set to null/0.
+ *
+ * If generated cloners are enabled, a plan may also carry a generated IFieldCopier for most of
+ * its fields. The fields it covers come first, the remaining ones (i.e. final or inaccessible
+ * fields) start at firstResidual.
+ *
+ * A class is flat when all its fields are primitives or shared (immutable) values. Instances of
+ * flat classes need no per field decisions and, if they are Cloneable, are copied in one step by
+ * objectClone (Object.clone() of the class).
+ *
+ * infrastructure holds the indexes of the fields shared because of their infrastructure type (see
+ * Cloner.setShareInfrastructure()) and of the deep cloned fields of a type infrastructure is assignable
+ * to, i.e. Object. They are reported when they reference an infrastructure instance.
+ */
+final class ClassClonePlan {
+	enum Action {
+		COPY_PRIMITIVE, // primitive field, copy the value
+		SHARE, // the field value is immutable or must not be cloned, copy the reference
+		DEEP_CLONE, // deep clone the field value
+		APPLY_STRATEGY // consult the registered cloning strategies, then deep clone
+	}
+
+	final Class<?> clz;
+	final Field[] fields;
+	final Action[] actions;
+	final IFieldAccessor[] accessors;
+	final IFieldCopier copier;
+	final int firstResidual;
+	final boolean flat;
+	final MethodHandle objectClone;
+	final int[] infrastructure;
+
+	ClassClonePlan(final Class<?> clz, final Field[] fields, final Action[] actions, final IFieldAccessor[] accessors, final IFieldCopier copier, final int firstResidual, final boolean flat, final MethodHandle objectClone, final int[] infrastructure) {
+		this.clz = clz;
+		this.fields = fields;
+		this.actions = actions;
+		this.accessors = accessors;
+		this.copier = copier;
+		this.firstResidual = firstResidual;
+		this.flat = flat;
+		this.objectClone = objectClone;
+		this.infrastructure = infrastructure;
+	}
+}
@@ -0,0 +1,41 @@
+package com.rits.cloning;
+
+/**
+ * everything the cloner decides about a class before cloning one of its instances, cached per class
+ * so that cloneInternal() does a single lookup per object.
+ */
+final class ClassHandler {
+	enum Kind {
+		NULL_INSTEAD, // nullInsteadOfClone()
+		SHARE, // immutable, enum or not to be cloned: use the same instance
+		FAST_CLONE, // has a fast cloner
+		FAST_CLONE_SUBCLASS, // subclass of a class with a fast cloner, see Cloner.setFastClonersForSubclasses()
+		ARRAY,
+		OBJECT // cloned field by field according to plan
+	}
+
+	final Kind kind;
+	// some instances of the class are registered constants, which are never cloned
+	final boolean mayBeConstant;
+	// instances may be frozen IFreezable's, which are not cloned
+	final boolean mayBeFrozen;
+	// the fast cloner for FAST_CLONE (null if Cloner.fastClone() must be asked) or of the ancestor for FAST_CLONE_SUBCLASS
+	final IFastCloner fastCloner;
+	// the clone plan for OBJECT, the plan of the fields the subclass adds for FAST_CLONE_SUBCLASS
+	final ClassClonePlan plan;
+	// for FAST_CLONE_SUBCLASS, the fields of the ancestor (and its superclasses) moved from the ancestor's clone
+	final IFieldAccessor[] inherited;
+
+	ClassHandler(final Kind kind, final boolean mayBeConstant, final boolean mayBeFrozen, final IFastCloner fastCloner, final ClassClonePlan plan) {
+		this(kind, mayBeConstant, mayBeFrozen, fastCloner, plan, null);
+	}
+
+	ClassHandler(final Kind kind, final boolean mayBeConstant, final boolean mayBeFrozen, final IFastCloner fastCloner, final ClassClonePlan plan, final IFieldAccessor[] inherited) {
+		this.kind = kind;
+		this.mayBeConstant = mayBeConstant;
+		this.mayBeFrozen = mayBeFrozen;
+		this.fastCloner = fastCloner;
+		this.plan = plan;
+		this.inherited = inherited;
+	}
+}
@@ -0,0 +1,76 @@
+package com.rits.cloning;
+
+/**
+ * limits of a single deep clone, see Cloner.deepClone(Object, CloneBudget). If the clone creates more
+ * objects, more (estimated) bytes or goes deeper than allowed, it is aborted with a CloningException
+ * naming the path into the biggest part of the object graph cloned so far.
+ *
+ * Immutable, so a budget can be shared by any number of threads.
+ */
+public final class CloneBudget
+{
+	private static final CloneBudget	UNLIMITED	= new CloneBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+	private final long					maxObjects;
+	private final long					maxBytes;
+	private final int					maxDepth;
+
+	private CloneBudget(final long maxObjects, final long maxBytes, final int maxDepth)
+	{
+		this.maxObjects = maxObjects;
+		this.maxBytes = maxBytes;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @return a budget without limits, to be narrowed by the with*() methods
+	 */
+	public static CloneBudget unlimited()
+	{
+		return UNLIMITED;
+	}
+
+	/**
+	 * @param maxObjects the maximum number of objects (arrays and collections included) the clone may create
+	 */
+	public CloneBudget withMaxObjects(final long maxObjects)
+	{
+		if (maxObjects < 1) throw new IllegalArgumentException("maxObjects must be positive");
+		return new CloneBudget(maxObjects, maxBytes, maxDepth);
+	}
+
+	/**
+	 * @param maxBytes the maximum estimated size of the objects the clone may create. The size of an object is
+	 *                 estimated from its fields (or its length, for arrays), assuming compressed references. The
+	 *                 internals of collections cloned by fast cloners are estimated from their size.
+	 */
+	public CloneBudget withMaxBytes(final long maxBytes)
+	{
+		if (maxBytes < 1) throw new IllegalArgumentException("maxBytes must be positive");
+		return new CloneBudget(maxObjects, maxBytes, maxDepth);
+	}
+
+	/**
+	 * @param maxDepth the maximum number of nested objects the clone may go through, the root being at depth 1
+	 */
+	public CloneBudget withMaxDepth(final int maxDepth)
+	{
+		if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be positive");
+		return new CloneBudget(maxObjects, maxBytes, maxDepth);
+	}
+
+	public long getMaxObjects()
+	{
+		return maxObjects;
+	}
+
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+}
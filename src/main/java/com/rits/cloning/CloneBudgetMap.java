@@ -0,0 +1,237 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * the clones table of a deep clone within a CloneBudget. Cloner calls enter() and exit() around the
+ * cloning of every new object, so that the depth is checked and the size of every subtree is known.
+ * enter() charges the object to the budget before it is copied, the size of a collection or array
+ * included, so that a huge collection aborts the clone before its elements are copied. Other clones put
+ * into the table, i.e. objects a fast cloner registers, are charged when they are put. The path into
+ * the biggest subtree is reported when the budget is exceeded.
+ *
+ * Not thread safe.
+ */
+final class CloneBudgetMap extends AbstractMap<Object, Object> {
+	private static final int HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+	// a HashMap.Node plus its slot in the table
+	private static final int MAP_ENTRY = 32 + REFERENCE;
+
+	private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<Long>() {
+		@Override
+		protected Long computeValue(final Class<?> type) {
+			long size = HEADER;
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				for (final Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) size += sizeOf(field.getType());
+				}
+			}
+			return align(size);
+		}
+	};
+
+	private final IdentityCloneMap clones;
+	private final CloneBudget budget;
+	private long objects;
+	private long bytes;
+	private int depth;
+	// the object being cloned, its ancestors are the frames of the objects that refer to it
+	private Frame top;
+	private Frame root;
+	// how the next object to enter() is referred to: a Field, an array index or null if unknown
+	private Object label;
+
+	/**
+	 * the cloning of an object and of everything cloned because of it
+	 */
+	private static final class Frame {
+		final Frame parent;
+		// the object being cloned, already charged
+		final Object key;
+		final Object label;
+		final Class<?> type;
+		final long start;
+		// the child being cloned
+		Frame active;
+		// the biggest child cloned so far
+		Frame biggest;
+		long biggestObjects;
+
+		Frame(final Frame parent, final Object key, final Object label, final Class<?> type, final long start) {
+			this.parent = parent;
+			this.key = key;
+			this.label = label;
+			this.type = type;
+			this.start = start;
+		}
+	}
+
+	CloneBudgetMap(final IdentityCloneMap clones, final CloneBudget budget) {
+		this.clones = clones;
+		this.budget = budget;
+	}
+
+	/**
+	 * sets how the next object to be cloned is referred to, a Field or an array index. null if unknown.
+	 */
+	void label(final Object label) {
+		this.label = label;
+	}
+
+	/**
+	 * @param o the object about to be cloned, charged to the budget as the size of its clone
+	 */
+	void enter(final Object o) {
+		final Frame frame = new Frame(top, o, label, o.getClass(), objects);
+		label = null;
+		if (top == null) root = frame;
+		else top.active = frame;
+		top = frame;
+		if (++depth > budget.getMaxDepth()) throw exceeded("deeper than " + budget.getMaxDepth() + " objects");
+		charge(o);
+	}
+
+	void exit() {
+		final Frame frame = top;
+		final Frame parent = frame.parent;
+		final long count = objects - frame.start;
+		if (parent != null) {
+			parent.active = null;
+			if (count > parent.biggestObjects) {
+				parent.biggestObjects = count;
+				parent.biggest = frame;
+			}
+		}
+		top = parent;
+		depth--;
+	}
+
+	private void charge(final Object o) {
+		bytes += sizeOf(o);
+		if (++objects > budget.getMaxObjects()) throw exceeded("more than " + budget.getMaxObjects() + " objects");
+		if (bytes > budget.getMaxBytes()) throw exceeded("more than " + budget.getMaxBytes() + " bytes");
+	}
+
+	private CloningException exceeded(final String limit) {
+		return new CloningException("clone budget exceeded, " + limit + ". Biggest subtree: " + biggestPath());
+	}
+
+	/**
+	 * from the root, follows the biggest child, be it cloned or still being cloned, as long as it holds most
+	 * of the objects of its parent. The path ends at the object under which the objects spread out, i.e. a
+	 * huge collection.
+	 */
+	private String biggestPath() {
+		if (root == null) return "none";
+		final StringBuilder path = new StringBuilder(name(root.type));
+		Frame frame = root;
+		long count = objects - root.start;
+		while (true) {
+			final Frame active = frame.active;
+			final long activeObjects = active != null ? objects - active.start : -1;
+			final Frame next;
+			final long nextObjects;
+			if (active != null && activeObjects >= frame.biggestObjects) {
+				next = active;
+				nextObjects = activeObjects;
+			} else {
+				next = frame.biggest;
+				nextObjects = frame.biggestObjects;
+			}
+			if (next == null || nextObjects * 2 <= count) break;
+			appendLabel(path, next);
+			frame = next;
+			count = nextObjects;
+		}
+		return path.append(" (").append(count).append(" objects)").toString();
+	}
+
+	private static void appendLabel(final StringBuilder path, final Frame frame) {
+		if (frame.label instanceof Field) path.append('.').append(((Field) frame.label).getName());
+		else if (frame.label instanceof Integer) path.append('[').append(frame.label).append(']');
+		else path.append('<').append(name(frame.type)).append('>');
+	}
+
+	private static String name(final Class<?> type) {
+		final String name = type.getSimpleName();
+		return name.isEmpty() ? type.getName() : name;
+	}
+
+	static long sizeOf(final Object o) {
+		final Class<?> type = o.getClass();
+		if (type.isArray()) return align(ARRAY_HEADER + (long) Array.getLength(o) * sizeOf(type.getComponentType()));
+		long size = SHALLOW_SIZES.get(type);
+		if (o instanceof Collection) size += align(ARRAY_HEADER + (long) ((Collection<?>) o).size() * REFERENCE);
+		else if (o instanceof Map) size += (long) ((Map<?, ?>) o).size() * MAP_ENTRY;
+		return size;
+	}
+
+	private static long sizeOf(final Class<?> type) {
+		if (!type.isPrimitive()) return REFERENCE;
+		if (type == long.class || type == double.class) return 8;
+		if (type == int.class || type == float.class) return 4;
+		if (type == short.class || type == char.class) return 2;
+		return 1;
+	}
+
+	private static long align(final long size) {
+		return (size + 7) & ~7L;
+	}
+
+	@Override
+	public Object get(final Object key) {
+		return clones.get(key);
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return clones.containsKey(key);
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		final Object previous = clones.put(key, value);
+		if (previous == null && !entered(key)) charge(value);
+		return previous;
+	}
+
+	@Override
+	public Object putIfAbsent(final Object key, final Object value) {
+		final Object previous = clones.putIfAbsent(key, value);
+		if (previous == null && !entered(key)) charge(value);
+		return previous;
+	}
+
+	// true if key is the object being cloned, charged by enter()
+	private boolean entered(final Object key) {
+		return top != null && top.key == key;
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		return clones.remove(key);
+	}
+
+	@Override
+	public int size() {
+		return clones.size();
+	}
+
+	@Override
+	public void clear() {
+		clones.clear();
+	}
+
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		return clones.entrySet();
+	}
+}
@@ -0,0 +1,270 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * what to clone of an object graph, see Cloner.deepClone(Object, CloneSpec). Everything that is not to
+ * be cloned is shared with the original.
+ *
+ * A path is a sequence of field names separated by dots, starting at a field of the root, where [*]
+ * stands for any element of an array, collection or map (keys and values), i.e. "lines[*].price".
+ * <ul>
+ * <li>maxDepth: objects deeper than that are shared, the root being at depth 1. A depth of 1 is a
+ * shallow clone.</li>
+ * <li>include: if any path is included, only the objects along the included paths are cloned, and the
+ * ones at their ends are deep cloned. Otherwise everything is cloned.</li>
+ * <li>exclude: the objects at the end of the excluded paths are shared.</li>
+ * </ul>
+ * The paths are compiled into a tree, and the tree into per class plans as classes are met, so a spec
+ * is meant to be created once and reused. Immutable and thread safe.
+ */
+public final class CloneSpec
+{
+	private static final String	ELEMENTS	= "[*]";
+
+	private final int			maxDepth;
+	private final List<String>	includes;
+	private final List<String>	excludes;
+	private final Node			root;
+
+	private CloneSpec(final int maxDepth, final List<String> includes, final List<String> excludes)
+	{
+		this.maxDepth = maxDepth;
+		this.includes = includes;
+		this.excludes = excludes;
+		root = compile(includes, excludes);
+	}
+
+	/**
+	 * @return a spec of a full deep clone, to be narrowed by withMaxDepth(), include() and exclude()
+	 */
+	public static CloneSpec all()
+	{
+		return new CloneSpec(Integer.MAX_VALUE, Collections.<String> emptyList(), Collections.<String> emptyList());
+	}
+
+	/**
+	 * @param maxDepth objects deeper than maxDepth are shared, the root being at depth 1
+	 */
+	public CloneSpec withMaxDepth(final int maxDepth)
+	{
+		if (maxDepth < 1) throw new IllegalArgumentException("maxDepth must be positive");
+		return new CloneSpec(maxDepth, includes, excludes);
+	}
+
+	/**
+	 * @param paths the paths along which objects are cloned, all others being shared
+	 */
+	public CloneSpec include(final String... paths)
+	{
+		return new CloneSpec(maxDepth, concat(includes, paths), excludes);
+	}
+
+	/**
+	 * @param paths the paths to objects that are shared, with everything reachable only through them
+	 */
+	public CloneSpec exclude(final String... paths)
+	{
+		return new CloneSpec(maxDepth, includes, concat(excludes, paths));
+	}
+
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	public List<String> getIncludes()
+	{
+		return includes;
+	}
+
+	public List<String> getExcludes()
+	{
+		return excludes;
+	}
+
+	Node root()
+	{
+		return root;
+	}
+
+	private static List<String> concat(final List<String> list, final String[] paths)
+	{
+		final List<String> result = new ArrayList<String>(list);
+		for (final String path : paths)
+		{
+			parse(path);
+			result.add(path);
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	// the segments of a path, field names or [*]
+	private static List<String> parse(final String path)
+	{
+		final List<String> segments = new ArrayList<String>();
+		final String[] parts = path.split("\\.", -1);
+		for (int p = 0; p < parts.length; p++)
+		{
+			String name = parts[p];
+			int elements = 0;
+			while (name.endsWith(ELEMENTS))
+			{
+				name = name.substring(0, name.length() - ELEMENTS.length());
+				elements++;
+			}
+			// only a path starting with the elements of the root, i.e. "[*].price", has no name first
+			if (name.isEmpty() ? p > 0 || elements == 0 : !isIdentifier(name)) throw new IllegalArgumentException("invalid path \"" + path + "\"");
+			if (!name.isEmpty()) segments.add(name);
+			for (int i = 0; i < elements; i++)
+			{
+				segments.add(ELEMENTS);
+			}
+		}
+		return segments;
+	}
+
+	private static boolean isIdentifier(final String name)
+	{
+		if (!Character.isJavaIdentifierStart(name.charAt(0))) return false;
+		for (int i = 1; i < name.length(); i++)
+		{
+			if (!Character.isJavaIdentifierPart(name.charAt(i))) return false;
+		}
+		return true;
+	}
+
+	private static Node compile(final List<String> includes, final List<String> excludes)
+	{
+		final Node root = new Node(includes.isEmpty());
+		for (final String path : includes)
+		{
+			Node node = root;
+			for (final String segment : parse(path))
+			{
+				node = node.child(segment, false);
+			}
+			node.all = true;
+		}
+		for (final String path : excludes)
+		{
+			Node node = root;
+			for (final String segment : parse(path))
+			{
+				node = node.child(segment, node.all);
+			}
+			node.excluded = true;
+		}
+		return root;
+	}
+
+	/**
+	 * a node of the compiled paths: what to clone of an object reached along a path
+	 */
+	static final class Node
+	{
+		// all of the subtree is cloned, but for the excluded paths below
+		static final Node						FULL		= new Node(true);
+
+		private final Map<String, Node>			children	= new HashMap<String, Node>();
+		private Node							elements;
+		boolean									all;
+		boolean									excluded;
+		// per class, the nodes of the fields of its latest plan. A plan rebuilt since replaces its entry.
+		private final Map<Class<?>, PlanNodes>	plans		= new ConcurrentHashMap<Class<?>, PlanNodes>();
+
+		private Node(final boolean all)
+		{
+			this.all = all;
+		}
+
+		private Node child(final String segment, final boolean all)
+		{
+			if (ELEMENTS.equals(segment))
+			{
+				if (elements == null) elements = new Node(all);
+				return elements;
+			}
+			Node child = children.get(segment);
+			if (child == null)
+			{
+				child = new Node(all);
+				children.put(segment, child);
+			}
+			return child;
+		}
+
+		/**
+		 * @return true if all of the subtree is to be cloned
+		 */
+		boolean isFull()
+		{
+			return all && children.isEmpty() && elements == null;
+		}
+
+		/**
+		 * @return the node of the elements of an array, collection or map, null if they are shared
+		 */
+		Node elements()
+		{
+			if (elements != null) return elements.excluded ? null : elements;
+			return all ? FULL : null;
+		}
+
+		/**
+		 * @return the node of the field, null if its value is shared
+		 */
+		Node field(final Field field)
+		{
+			final Node child = children.get(field.getName());
+			if (child != null) return child.excluded ? null : child;
+			return all ? FULL : null;
+		}
+
+		/**
+		 * @return the nodes of the fields of the plan, null for the fields to be shared. Never called on
+		 * FULL, whose fields are all FULL.
+		 */
+		Node[] fields(final ClassClonePlan plan)
+		{
+			PlanNodes planNodes = plans.get(plan.clz);
+			// a plan rebuilt since, i.e. by another cloner, may order its fields differently
+			if (planNodes == null || planNodes.plan != plan)
+			{
+				final Node[] nodes = new Node[plan.fields.length];
+				for (int i = 0; i < nodes.length; i++)
+				{
+					nodes[i] = field(plan.fields[i]);
+				}
+				planNodes = new PlanNodes(plan, nodes);
+				plans.put(plan.clz, planNodes);
+			}
+			return planNodes.nodes;
+		}
+	}
+
+	// the nodes of the fields of a plan, null for the fields to be shared
+	private static final class PlanNodes
+	{
+		final ClassClonePlan	plan;
+		final Node[]			nodes;
+
+		PlanNodes(final ClassClonePlan plan, final Node[] nodes)
+		{
+			this.plan = plan;
+			this.nodes = nodes;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CloneSpec[maxDepth=" + maxDepth + ", includes=" + includes + ", excludes=" + excludes + "]";
+	}
+}
@@ -1,6 +1,9 @@
 package com.rits.cloning;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -8,9 +11,53 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URI;
 import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.chrono.HijrahDate;
+import java.time.chrono.JapaneseDate;
+import java.time.chrono.JapaneseEra;
+import java.time.chrono.MinguoDate;
+import java.time.chrono.ThaiBuddhistDate;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneRules;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.regex.Pattern;
 
 /**
@@ -23,12 +70,28 @@ import java.util.regex.Pattern;
  */
 public class Cloner {
 	private final IInstantiationStrategy instantiationStrategy;
+	private final IFieldAccessStrategy fieldAccessStrategy;
 	private final Set<Class<?>> ignored = new HashSet<Class<?>>();
 	private final Set<Class<?>> ignoredInstanceOf = new HashSet<Class<?>>();
+	// instances of these (and their subclasses) are shared if shareInfrastructure is on
+	private final Set<Class<?>> infrastructureTypes = new HashSet<Class<?>>();
+	private final ConcurrentHashMap<Class<?>, Boolean> infrastructureClasses = new ConcurrentHashMap<Class<?>, Boolean>();
+	// the fields through which infrastructure was shared, each one logged once
+	private final Set<Field> reportedInfrastructure = ConcurrentHashMap.newKeySet();
 	private final Set<Class<?>> nullInstead = new HashSet<Class<?>>();
 	private final Map<Class<?>, IFastCloner> fastCloners = new HashMap<Class<?>, IFastCloner>();
+	// fast cloners of collection views, used if materializeViews is on
+	private final Map<Class<?>, IFastCloner> viewCloners = new HashMap<Class<?>, IFastCloner>();
 	private final Map<Object, Boolean> ignoredInstances = new IdentityHashMap<Object, Boolean>();
 	private final ConcurrentHashMap<Class<?>, List<Field>> fieldsCache = new ConcurrentHashMap<Class<?>, List<Field>>();
+	private final ConcurrentHashMap<Class<?>, ClassClonePlan> clonePlans = new ConcurrentHashMap<Class<?>, ClassClonePlan>();
+	private final ConcurrentHashMap<Class<?>, ClassHandler> classHandlers = new ConcurrentHashMap<Class<?>, ClassHandler>();
+	// classes of the registered constants (ignoredInstances)
+	private final Set<Class<?>> constantClasses = new HashSet<Class<?>>();
+	// the size of the clones table of the last deep clone of each root class, used to presize it
+	private final ConcurrentHashMap<Class<?>, Integer> cloneSizes = new ConcurrentHashMap<Class<?>, Integer>();
+	// one reusable clones table per thread
+	private final ThreadLocal<IdentityCloneMap> pooledClones = new ThreadLocal<IdentityCloneMap>();
 	private final List<ICloningStrategy> cloningStrategies = new LinkedList<ICloningStrategy>();
 
 	public IDumpCloned getDumpCloned() {
@@ -50,14 +113,47 @@ public class Cloner {
 	private boolean cloningEnabled = true;
 	private boolean nullTransient = false;
 	private boolean cloneSynthetics = true;
+	private boolean generatedCloners = false;
+	private boolean bulkCopyFlatClasses = true;
+	private boolean fastCloneOverridden;
+	// true if instances are created by other means than the default Objenesis strategy
+	private boolean customInstantiation;
+	private boolean inferImmutables = false;
+	private boolean fastClonersForSubclasses = false;
+	private boolean materializeViews = false;
+	private boolean shareTimeZones = false;
+	private boolean shareInfrastructure = true;
+	private boolean verifyTrees = false;
+	private int maxTreeObjects = 10000000;
+	private Traversal traversal = Traversal.RECURSIVE;
+	private int parallelThreshold = 0;
+	private ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
+
+	/**
+	 * how deep clones walk the object graph
+	 */
+	public enum Traversal {
+		RECURSIVE, // recurse once per level of the graph, the default
+		DEPTH_FIRST, // walk the graph with an explicit stack, the call stack doesn't grow with the depth of the graph
+		BREADTH_FIRST // like DEPTH_FIRST but level by level, so that the clones of siblings are allocated next to each other
+	}
 
 	public Cloner() {
-		this.instantiationStrategy = ObjenesisInstantiationStrategy.getInstance();
-		init();
+		this(ObjenesisInstantiationStrategy.getInstance());
 	}
 
 	public Cloner(final IInstantiationStrategy instantiationStrategy) {
+		this(instantiationStrategy, ReflectionFieldAccessStrategy.getInstance());
+	}
+
+	/**
+	 * @param instantiationStrategy creates the new instances of cloned classes
+	 * @param fieldAccessStrategy   reads and writes the fields of cloned objects, i.e.
+	 *                              VarHandleFieldAccessStrategy to copy primitive fields without boxing
+	 */
+	public Cloner(final IInstantiationStrategy instantiationStrategy, final IFieldAccessStrategy fieldAccessStrategy) {
 		this.instantiationStrategy = instantiationStrategy;
+		this.fieldAccessStrategy = fieldAccessStrategy;
 		init();
 	}
 
@@ -74,37 +170,456 @@ public class Cloner {
 	 */
 	public void setNullTransient(final boolean nullTransient) {
 		this.nullTransient = nullTransient;
+		configurationChanged();
 	}
 
 	public void setCloneSynthetics(final boolean cloneSynthetics) {
 		this.cloneSynthetics = cloneSynthetics;
+		configurationChanged();
+	}
+
+	public boolean isGeneratedCloners() {
+		return generatedCloners;
+	}
+
+	/**
+	 * if true, the cloner generates (once per class) a copier class that reads and writes the fields
+	 * directly instead of via reflection. Fields that the generated class can't access (i.e. final
+	 * fields or private fields of superclasses) are still copied via reflection, as are classes in
+	 * packages that are not open to the cloner. Default is false.
+	 *
+	 * @param generatedCloners true to enable generated cloners
+	 */
+	public void setGeneratedCloners(final boolean generatedCloners) {
+		this.generatedCloners = generatedCloners;
+		configurationChanged();
+	}
+
+	public boolean isBulkCopyFlatClasses() {
+		return bulkCopyFlatClasses;
+	}
+
+	/**
+	 * flat classes are classes whose fields are all primitives or immutables. If true (the default),
+	 * Cloneable flat classes are copied with Object.clone(), which means newInstance() is not
+	 * called for them. That's only done with the default IInstantiationStrategy and when
+	 * newInstance() isn't overridden, so that custom instantiation always applies.
+	 *
+	 * @param bulkCopyFlatClasses false to always create and fill new instances field by field
+	 */
+	public void setBulkCopyFlatClasses(final boolean bulkCopyFlatClasses) {
+		this.bulkCopyFlatClasses = bulkCopyFlatClasses;
+		configurationChanged();
+	}
+
+	public boolean isInferImmutables() {
+		return inferImmutables;
+	}
+
+	/**
+	 * if true, the cloner also considers immutable any final class (i.e. a record) whose instance
+	 * fields, including inherited ones, are all final and either primitives, enums, immutables (see
+	 * registerImmutable()) or of a class inferred immutable by the same rule. Instances of such classes
+	 * are shared instead of cloned. Arrays, interfaces and non final classes are never inferred
+	 * immutable, as a field of such a type could refer to a mutable instance. Nothing is inferred while
+	 * cloning strategies are registered. Default is false.
+	 *
+	 * @param inferImmutables true to infer immutable classes
+	 */
+	public void setInferImmutables(final boolean inferImmutables) {
+		this.inferImmutables = inferImmutables;
+		configurationChanged();
+	}
+
+	public boolean isFastClonersForSubclasses() {
+		return fastClonersForSubclasses;
+	}
+
+	/**
+	 * if true, subclasses of JDK collections with a built-in fast cloner (i.e. a class extending
+	 * LinkedList or HashMap) are cloned by that fast cloner, unless they or a superclass below the
+	 * collection override clone(). The state of the collection is cloned by the fast cloner, using the
+	 * collection's iteration, and the fields the subclass adds are cloned as usual. Otherwise such
+	 * subclasses are cloned field by field, including the internals of the collection. Default is false.
+	 *
+	 * @param fastClonersForSubclasses true to use fast cloners for subclasses of JDK collections
+	 */
+	public void setFastClonersForSubclasses(final boolean fastClonersForSubclasses) {
+		this.fastClonersForSubclasses = fastClonersForSubclasses;
+		configurationChanged();
+	}
+
+	public boolean isMaterializeViews() {
+		return materializeViews;
+	}
+
+	/**
+	 * if true, collection views of JDK maps (keySet(), values(), entrySet(), subMap(), headMap() etc)
+	 * are cloned into standalone collections holding clones of the visible elements only, i.e. the
+	 * keySet() of a HashMap into a HashSet and the subMap() of a TreeMap into a TreeMap with the same
+	 * comparator. Otherwise a view is cloned field by field, together with the whole map behind it.
+	 *
+	 * A materialized view isn't backed by a map anymore, not even by the clone of its map if that map
+	 * is cloned too. Default is false.
+	 *
+	 * @param materializeViews true to clone collection views into standalone collections
+	 */
+	public void setMaterializeViews(final boolean materializeViews) {
+		this.materializeViews = materializeViews;
+		configurationChanged();
+	}
+
+	public boolean isShareTimeZones() {
+		return shareTimeZones;
+	}
+
+	/**
+	 * if true, TimeZone's, including the time zones of Calendar's, are shared instead of cloned. A TimeZone
+	 * is mutable only via setRawOffset() and setID(), so this is safe as long as the application doesn't
+	 * call them. Default is false.
+	 *
+	 * @param shareTimeZones true to share time zones
+	 */
+	public void setShareTimeZones(final boolean shareTimeZones) {
+		this.shareTimeZones = shareTimeZones;
+		configurationChanged();
+	}
+
+	public boolean isShareInfrastructure() {
+		return shareInfrastructure;
+	}
+
+	/**
+	 * if true, instances of the infrastructure types (loggers, executors, class loaders, threads, data
+	 * sources etc, see registerInfrastructureTypes()) are shared instead of cloned, as cloning them would
+	 * clone whatever they refer to, if it works at all. The first time such an instance is shared through
+	 * a field, the field is logged, as a domain model usually shouldn't refer to infrastructure. The log
+	 * names the field by its declaring class, not by its path from the cloned root. Default is true.
+	 *
+	 * @param shareInfrastructure false to clone infrastructure like any other object
+	 */
+	public void setShareInfrastructure(final boolean shareInfrastructure) {
+		this.shareInfrastructure = shareInfrastructure;
+		configurationChanged();
+	}
+
+	/**
+	 * registers infrastructure types, whose instances, including instances of subclasses, are shared if
+	 * shareInfrastructure is on
+	 *
+	 * @param c the infrastructure classes or interfaces
+	 */
+	public void registerInfrastructureType(final Class<?>... c) {
+		infrastructureTypes.addAll(Arrays.asList(c));
+		configurationChanged();
+	}
+
+	/**
+	 * registers the infrastructure types of the JDK, and of the logging libraries that are on the classpath.
+	 * Override this to register other ones, or none.
+	 */
+	protected void registerInfrastructureTypes() {
+		registerInfrastructureType(java.util.logging.Logger.class, System.Logger.class, Executor.class, ClassLoader.class,
+				Thread.class, ThreadGroup.class, ThreadLocal.class, Runtime.class);
+		for (final String className : new String[]{"javax.sql.DataSource", "org.slf4j.Logger", "org.apache.logging.log4j.Logger", "org.apache.log4j.Category"}) {
+			try {
+				registerInfrastructureType(getClass().getClassLoader().loadClass(className));
+			} catch (ClassNotFoundException e) {
+				// ignore, not on the classpath
+			}
+		}
+	}
+
+	private boolean isInfrastructure(final Class<?> clz) {
+		Boolean infrastructure = infrastructureClasses.get(clz);
+		if (infrastructure == null) {
+			infrastructure = false;
+			for (final Class<?> type : infrastructureTypes) {
+				if (type.isAssignableFrom(clz)) {
+					infrastructure = true;
+					break;
+				}
+			}
+			infrastructureClasses.put(clz, infrastructure);
+		}
+		return infrastructure;
+	}
+
+	/**
+	 * reports the infrastructure instances o's fields share, as per the plan. Every path that clones o's
+	 * fields as per a plan calls this first.
+	 */
+	private void reportInfrastructure(final Object o, final ClassClonePlan plan) throws IllegalAccessException {
+		for (final int i : plan.infrastructure) {
+			final Field field = plan.fields[i];
+			if (reportedInfrastructure.contains(field)) continue;
+			final Object value = plan.accessors[i].get(o);
+			if (value != null && isInfrastructure(value.getClass())) reportInfrastructure(field, value.getClass());
+		}
+	}
+
+	// reports infrastructure in a field of an unrelated type, i.e. an interface an infrastructure subclass implements
+	private void reportInfrastructure(final Field field, final Object fieldObject, final Object fieldObjectClone) {
+		if (fieldObjectClone == fieldObject && fieldObject != null && shareInfrastructure && !reportedInfrastructure.contains(field) && isInfrastructure(fieldObject.getClass())) {
+			reportInfrastructure(field, fieldObject.getClass());
+		}
+	}
+
+	private void reportInfrastructure(final Field field, final Class<?> clz) {
+		if (reportedInfrastructure.add(field)) {
+			System.getLogger(Cloner.class.getName()).log(System.Logger.Level.WARNING,
+					"sharing " + clz.getName() + " referenced by " + field.getDeclaringClass().getName() + "." + field.getName() + " instead of cloning it");
+		}
 	}
 
 	private void init() {
+		fastCloneOverridden = isOverridden("fastClone", Object.class, Map.class);
+		customInstantiation = isOverridden("newInstance", Class.class) || instantiationStrategy.getClass() != ObjenesisInstantiationStrategy.class;
 		registerKnownJdkImmutableClasses();
 		registerKnownConstants();
+		registerInfrastructureTypes();
 		registerFastCloners();
+		registerViewCloners();
+		registerGeneratedFastCloners();
+	}
+
+	/**
+	 * registers the fast cloners generated for @GenerateCloner classes, as listed in the
+	 * META-INF/services/com.rits.cloning.IGeneratedFastCloner files visible to the context
+	 * class loader. Override this to not register them.
+	 */
+	protected void registerGeneratedFastCloners() {
+		for (final IGeneratedFastCloner fastCloner : generatedFastCloners(Thread.currentThread().getContextClassLoader())) {
+			fastCloners.put(fastCloner.getClonedClass(), fastCloner);
+		}
+	}
+
+	// the generated fast cloners visible to the class loader of Cloner, loaded once as they are stateless
+	private static volatile List<IGeneratedFastCloner> generatedFastCloners;
+
+	/**
+	 * @return the generated fast cloners visible to the loader. Only the ones of the loader of Cloner are
+	 * cached, as caching the ones of other loaders would keep these loaders from being unloaded.
+	 */
+	private static List<IGeneratedFastCloner> generatedFastCloners(final ClassLoader loader) {
+		if (loader != Cloner.class.getClassLoader()) return loadGeneratedFastCloners(loader);
+		List<IGeneratedFastCloner> cached = generatedFastCloners;
+		if (cached == null) generatedFastCloners = cached = loadGeneratedFastCloners(loader);
+		return cached;
+	}
+
+	private static List<IGeneratedFastCloner> loadGeneratedFastCloners(final ClassLoader loader) {
+		final List<IGeneratedFastCloner> loaded = new ArrayList<IGeneratedFastCloner>();
+		for (final IGeneratedFastCloner fastCloner : ServiceLoader.load(IGeneratedFastCloner.class, loader)) {
+			loaded.add(fastCloner);
+		}
+		return loaded;
 	}
 
 	/**
 	 * registers a std set of fast cloners.
 	 */
 	protected void registerFastCloners() {
-		fastCloners.put(GregorianCalendar.class, new FastClonerCalendar());
+		final FastClonerCalendar calendarCloner = new FastClonerCalendar(this);
+		fastCloners.put(GregorianCalendar.class, calendarCloner);
+		final FastClonerTimeZone timeZoneCloner = new FastClonerTimeZone();
+		fastCloners.put(SimpleTimeZone.class, timeZoneCloner);
+		final FastClonerDate dateCloner = new FastClonerDate();
+		fastCloners.put(Date.class, dateCloner);
 		fastCloners.put(ArrayList.class, new FastClonerArrayList());
 		fastCloners.put(LinkedList.class, new FastClonerLinkedList());
 		fastCloners.put(HashSet.class, new FastClonerHashSet());
 		fastCloners.put(HashMap.class, new FastClonerHashMap());
 		fastCloners.put(TreeMap.class, new FastClonerTreeMap());
+		fastCloners.put(TreeSet.class, new FastClonerTreeSet());
+		fastCloners.put(ConcurrentSkipListMap.class, new FastClonerConcurrentSkipListMap());
+		fastCloners.put(ConcurrentSkipListSet.class, new FastClonerConcurrentSkipListSet());
 		fastCloners.put(LinkedHashMap.class, new FastClonerLinkedHashMap());
 		fastCloners.put(ConcurrentHashMap.class, new FastClonerConcurrentHashMap());
 		fastCloners.put(ConcurrentLinkedQueue.class, new FastClonerConcurrentLinkedQueue());
+		fastCloners.put(ConcurrentLinkedDeque.class, new FastClonerConcurrentLinkedDeque());
+		fastCloners.put(CopyOnWriteArrayList.class, new FastClonerCopyOnWriteArrayList());
+		fastCloners.put(CopyOnWriteArraySet.class, new FastClonerCopyOnWriteArraySet());
+		fastCloners.put(LinkedBlockingQueue.class, new FastClonerLinkedBlockingQueue());
+		fastCloners.put(LinkedBlockingDeque.class, new FastClonerLinkedBlockingDeque());
+		fastCloners.put(ArrayBlockingQueue.class, new FastClonerArrayBlockingQueue());
+		final FastClonerVector vectorCloner = new FastClonerVector();
+		fastCloners.put(Vector.class, vectorCloner);
+		fastCloners.put(Stack.class, vectorCloner);
+		fastCloners.put(Hashtable.class, new FastClonerHashtable(null));
+		fastCloners.put(ArrayDeque.class, new FastClonerArrayDeque());
+		fastCloners.put(PriorityQueue.class, new FastClonerPriorityQueue());
+		fastCloners.put(EnumMap.class, new FastClonerEnumMap());
+		fastCloners.put(IdentityHashMap.class, new FastClonerIdentityHashMap());
+		fastCloners.put(WeakHashMap.class, new FastClonerWeakHashMap());
+		fastCloners.put(BitSet.class, new FastClonerBitSet());
+		final FastClonerAtomic atomicCloner = new FastClonerAtomic();
+		for (final Class<?> atomic : new Class<?>[]{AtomicBoolean.class, AtomicInteger.class, AtomicLong.class, AtomicReference.class,
+				AtomicIntegerArray.class, AtomicLongArray.class, AtomicReferenceArray.class, LongAdder.class, DoubleAdder.class}) {
+			fastCloners.put(atomic, atomicCloner);
+		}
+		final FastClonerLock lockCloner = new FastClonerLock();
+		fastCloners.put(ReentrantLock.class, lockCloner);
+		fastCloners.put(ReentrantReadWriteLock.class, lockCloner);
+		fastCloners.put(StampedLock.class, lockCloner);
+		final Field defaults = FastClonerWrapper.field("java.util.Properties", "defaults");
+		if (defaults != null) fastCloners.put(Properties.class, new FastClonerHashtable(defaults));
 
 		// register private classes
 		FastClonerArrayListSubList subListCloner = new FastClonerArrayListSubList();
 		registerInaccessibleClassToBeFastCloned("java.util.ArrayList$SubList", subListCloner);
 		registerInaccessibleClassToBeFastCloned("java.util.SubList", subListCloner);
 		registerInaccessibleClassToBeFastCloned("java.util.RandomAccessSubList", subListCloner);
+		registerInaccessibleClassToBeFastCloned("java.util.AbstractList$SubList", subListCloner);
+		registerInaccessibleClassToBeFastCloned("java.util.AbstractList$RandomAccessSubList", subListCloner);
+		registerInaccessibleClassToBeFastCloned("java.util.JapaneseImperialCalendar", calendarCloner);
+		registerInaccessibleClassToBeFastCloned("sun.util.BuddhistCalendar", calendarCloner);
+		registerInaccessibleClassToBeFastCloned("sun.util.calendar.ZoneInfo", timeZoneCloner);
+		registerInaccessibleClassToBeFastCloned("java.sql.Date", dateCloner);
+		registerInaccessibleClassToBeFastCloned("java.sql.Time", dateCloner);
+		registerInaccessibleClassToBeFastCloned("java.sql.Timestamp", dateCloner);
+		final FastClonerByteBuffer byteBufferCloner = new FastClonerByteBuffer();
+		registerInaccessibleClassToBeFastCloned("java.nio.HeapByteBuffer", byteBufferCloner);
+		registerInaccessibleClassToBeFastCloned("java.nio.HeapByteBufferR", byteBufferCloner);
+		registerInaccessibleClassToBeFastCloned("java.nio.DirectByteBuffer", byteBufferCloner);
+		registerInaccessibleClassToBeFastCloned("java.nio.DirectByteBufferR", byteBufferCloner);
+		final FastClonerEnumSet enumSetCloner = new FastClonerEnumSet();
+		registerInaccessibleClassToBeFastCloned("java.util.RegularEnumSet", enumSetCloner);
+		registerInaccessibleClassToBeFastCloned("java.util.JumboEnumSet", enumSetCloner);
+		registerWrapperAndImmutableCollectionFastCloners();
+	}
+
+	/**
+	 * registers the fast cloners of the private JDK collection classes returned by Collections.unmodifiable*(),
+	 * synchronized*(), checked*(), singleton*(), Arrays.asList() and List/Set/Map.of(), and registers the
+	 * Collections.empty*() classes as immutable. Wrappers are only registered if java.util is open to the cloner.
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	protected void registerWrapperAndImmutableCollectionFastCloners() {
+		final String collections = "java.util.Collections$";
+		for (final String empty : new String[]{"EmptyList", "EmptySet", "EmptyMap", "EmptyIterator", "EmptyListIterator", "EmptyEnumeration",
+				"UnmodifiableNavigableSet$EmptyNavigableSet", "UnmodifiableNavigableMap$EmptyNavigableMap"}) {
+			try {
+				registerImmutable(getClass().getClassLoader().loadClass(collections + empty));
+			} catch (ClassNotFoundException e) {
+				// ignore, a jdk with other empty collections
+			}
+		}
+
+		final String immutables = "java.util.ImmutableCollections$";
+		final IFastCloner list = new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.LIST);
+		final IFastCloner set = new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.SET);
+		final IFastCloner map = new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.MAP);
+		registerInaccessibleClassToBeFastCloned(immutables + "List12", list);
+		registerInaccessibleClassToBeFastCloned(immutables + "ListN", list);
+		registerInaccessibleClassToBeFastCloned(immutables + "SubList", list);
+		registerInaccessibleClassToBeFastCloned(immutables + "Set12", set);
+		registerInaccessibleClassToBeFastCloned(immutables + "SetN", set);
+		registerInaccessibleClassToBeFastCloned(immutables + "Map1", map);
+		registerInaccessibleClassToBeFastCloned(immutables + "MapN", map);
+		registerInaccessibleClassToBeFastCloned(collections + "SingletonList", new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.SINGLETON_LIST));
+		registerInaccessibleClassToBeFastCloned(collections + "SingletonSet", new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.SINGLETON_SET));
+		registerInaccessibleClassToBeFastCloned(collections + "SingletonMap", new FastClonerImmutableCollection(FastClonerImmutableCollection.Kind.SINGLETON_MAP));
+
+		final Field array = FastClonerWrapper.field("java.util.Arrays$ArrayList", "a");
+		if (array != null) {
+			registerInaccessibleClassToBeFastCloned("java.util.Arrays$ArrayList", new FastClonerWrapper((d, s) -> Arrays.asList((Object[]) d), array));
+		}
+
+		final Field unmodifiable = FastClonerWrapper.field(collections + "UnmodifiableCollection", "c");
+		final Field unmodifiableMap = FastClonerWrapper.field(collections + "UnmodifiableMap", "m");
+		if (unmodifiable != null && unmodifiableMap != null) {
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableCollection", new FastClonerWrapper((d, s) -> Collections.unmodifiableCollection((Collection) d), unmodifiable));
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableSet", new FastClonerWrapper((d, s) -> Collections.unmodifiableSet((Set) d), unmodifiable));
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableSortedSet", new FastClonerWrapper((d, s) -> Collections.unmodifiableSortedSet((SortedSet) d), unmodifiable));
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableNavigableSet", new FastClonerWrapper((d, s) -> Collections.unmodifiableNavigableSet((NavigableSet) d), unmodifiable));
+			final IFastCloner unmodifiableList = new FastClonerWrapper((d, s) -> Collections.unmodifiableList((List) d), unmodifiable);
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableList", unmodifiableList);
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableRandomAccessList", unmodifiableList);
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableMap", new FastClonerWrapper((d, s) -> Collections.unmodifiableMap((Map) d), unmodifiableMap));
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableSortedMap", new FastClonerWrapper((d, s) -> Collections.unmodifiableSortedMap((SortedMap) d), unmodifiableMap));
+			registerInaccessibleClassToBeFastCloned(collections + "UnmodifiableNavigableMap", new FastClonerWrapper((d, s) -> Collections.unmodifiableNavigableMap((NavigableMap) d), unmodifiableMap));
+		}
+
+		final Field synchronizedCollection = FastClonerWrapper.field(collections + "SynchronizedCollection", "c");
+		final Field synchronizedMap = FastClonerWrapper.field(collections + "SynchronizedMap", "m");
+		if (synchronizedCollection != null && synchronizedMap != null) {
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedCollection", new FastClonerWrapper((d, s) -> Collections.synchronizedCollection((Collection) d), synchronizedCollection));
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedSet", new FastClonerWrapper((d, s) -> Collections.synchronizedSet((Set) d), synchronizedCollection));
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedSortedSet", new FastClonerWrapper((d, s) -> Collections.synchronizedSortedSet((SortedSet) d), synchronizedCollection));
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedNavigableSet", new FastClonerWrapper((d, s) -> Collections.synchronizedNavigableSet((NavigableSet) d), synchronizedCollection));
+			final IFastCloner synchronizedList = new FastClonerWrapper((d, s) -> Collections.synchronizedList((List) d), synchronizedCollection);
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedList", synchronizedList);
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedRandomAccessList", synchronizedList);
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedMap", new FastClonerWrapper((d, s) -> Collections.synchronizedMap((Map) d), synchronizedMap));
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedSortedMap", new FastClonerWrapper((d, s) -> Collections.synchronizedSortedMap((SortedMap) d), synchronizedMap));
+			registerInaccessibleClassToBeFastCloned(collections + "SynchronizedNavigableMap", new FastClonerWrapper((d, s) -> Collections.synchronizedNavigableMap((NavigableMap) d), synchronizedMap));
+		}
+
+		final Field checked = FastClonerWrapper.field(collections + "CheckedCollection", "c");
+		final Field checkedType = FastClonerWrapper.field(collections + "CheckedCollection", "type");
+		final Field checkedMap = FastClonerWrapper.field(collections + "CheckedMap", "m");
+		final Field keyType = FastClonerWrapper.field(collections + "CheckedMap", "keyType");
+		final Field valueType = FastClonerWrapper.field(collections + "CheckedMap", "valueType");
+		if (checked != null && checkedType != null && checkedMap != null && keyType != null && valueType != null) {
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedCollection", new FastClonerWrapper((d, s) -> Collections.checkedCollection((Collection) d, (Class) s[0]), checked, checkedType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedSet", new FastClonerWrapper((d, s) -> Collections.checkedSet((Set) d, (Class) s[0]), checked, checkedType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedSortedSet", new FastClonerWrapper((d, s) -> Collections.checkedSortedSet((SortedSet) d, (Class) s[0]), checked, checkedType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedNavigableSet", new FastClonerWrapper((d, s) -> Collections.checkedNavigableSet((NavigableSet) d, (Class) s[0]), checked, checkedType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedQueue", new FastClonerWrapper((d, s) -> Collections.checkedQueue((Queue) d, (Class) s[0]), checked, checkedType));
+			final IFastCloner checkedList = new FastClonerWrapper((d, s) -> Collections.checkedList((List) d, (Class) s[0]), checked, checkedType);
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedList", checkedList);
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedRandomAccessList", checkedList);
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedMap", new FastClonerWrapper((d, s) -> Collections.checkedMap((Map) d, (Class) s[0], (Class) s[1]), checkedMap, keyType, valueType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedSortedMap", new FastClonerWrapper((d, s) -> Collections.checkedSortedMap((SortedMap) d, (Class) s[0], (Class) s[1]), checkedMap, keyType, valueType));
+			registerInaccessibleClassToBeFastCloned(collections + "CheckedNavigableMap", new FastClonerWrapper((d, s) -> Collections.checkedNavigableMap((NavigableMap) d, (Class) s[0], (Class) s[1]), checkedMap, keyType, valueType));
+		}
+	}
+
+	/**
+	 * registers the fast cloners of the collection views of JDK maps, used if materializeViews is on
+	 */
+	protected void registerViewCloners() {
+		final IFastCloner unorderedSet = new FastClonerSetView(false);
+		final IFastCloner orderedSet = new FastClonerSetView(true);
+		final IFastCloner collection = new FastClonerCollectionView();
+		final IFastCloner entrySet = new FastClonerEntrySetView();
+		final IFastCloner sortedSet = new FastClonerSortedSetView();
+		final IFastCloner sortedMap = new FastClonerSortedMapView(false);
+		registerViewCloner("java.util.HashMap$KeySet", unorderedSet);
+		registerViewCloner("java.util.HashMap$Values", collection);
+		registerViewCloner("java.util.HashMap$EntrySet", entrySet);
+		registerViewCloner("java.util.LinkedHashMap$LinkedKeySet", orderedSet);
+		registerViewCloner("java.util.LinkedHashMap$LinkedValues", collection);
+		registerViewCloner("java.util.LinkedHashMap$LinkedEntrySet", entrySet);
+		registerViewCloner("java.util.TreeMap$KeySet", sortedSet);
+		registerViewCloner("java.util.TreeMap$Values", collection);
+		registerViewCloner("java.util.TreeMap$EntrySet", entrySet);
+		registerViewCloner("java.util.TreeMap$AscendingSubMap", sortedMap);
+		registerViewCloner("java.util.TreeMap$DescendingSubMap", sortedMap);
+		registerViewCloner("java.util.TreeMap$AscendingSubMap$AscendingEntrySetView", entrySet);
+		registerViewCloner("java.util.TreeMap$DescendingSubMap$DescendingEntrySetView", entrySet);
+		registerViewCloner("java.util.concurrent.ConcurrentHashMap$KeySetView", new FastClonerConcurrentKeySetView());
+		registerViewCloner("java.util.concurrent.ConcurrentHashMap$ValuesView", collection);
+		registerViewCloner("java.util.concurrent.ConcurrentHashMap$EntrySetView", entrySet);
+		registerViewCloner("java.util.concurrent.ConcurrentSkipListMap$SubMap", new FastClonerSortedMapView(true));
+	}
+
+	private void registerViewCloner(final String className, final IFastCloner fastCloner) {
+		try {
+			viewCloners.put(getClass().getClassLoader().loadClass(className), fastCloner);
+			configurationChanged();
+		} catch (ClassNotFoundException e) {
+			// ignore, a jdk with other view classes
+		}
+	}
+
+	private IFastCloner fastClonerFor(final Class<?> c) {
+		final IFastCloner fastCloner = fastCloners.get(c);
+		// the time of a Date is a transient field, so it is nulled as any other
+		if (nullTransient && fastCloner instanceof FastClonerDate) return null;
+		if (fastCloner != null || !materializeViews) return fastCloner;
+		return viewCloners.get(c);
 	}
 
 	protected void registerInaccessibleClassToBeFastCloned(String className, IFastCloner fastCloner) {
@@ -112,6 +627,7 @@ public class Cloner {
 			ClassLoader classLoader = getClass().getClassLoader();
 			Class<?> subListClz = classLoader.loadClass(className);
 			fastCloners.put(subListClz, fastCloner);
+			configurationChanged();
 		} catch (ClassNotFoundException e) {
 			// ignore, maybe a jdk without SubList
 		}
@@ -130,13 +646,15 @@ public class Cloner {
 
 	protected Object fastClone(final Object o, final Map<Object, Object> clones) {
 		final Class<? extends Object> c = o.getClass();
-		final IFastCloner fastCloner = fastCloners.get(c);
+		final IFastCloner fastCloner = fastClonerFor(c);
 		if (fastCloner != null) return fastCloner.clone(o, deepCloner, clones);
 		return null;
 	}
 
 	public void registerConstant(final Object o) {
 		ignoredInstances.put(o, true);
+		constantClasses.add(o.getClass());
+		configurationChanged();
 	}
 
 	public void registerConstant(final Class<?> c, final String privateFieldName) {
@@ -147,6 +665,8 @@ public class Cloner {
 					field.setAccessible(true);
 					final Object v = field.get(null);
 					ignoredInstances.put(v, true);
+					if (v != null) constantClasses.add(v.getClass());
+					configurationChanged();
 					return;
 				}
 			}
@@ -183,6 +703,17 @@ public class Cloner {
 		registerImmutable(URL.class);
 		registerImmutable(UUID.class);
 		registerImmutable(Pattern.class);
+
+		registerImmutable(Instant.class, Duration.class, Period.class, LocalDate.class, LocalTime.class, LocalDateTime.class,
+				OffsetTime.class, OffsetDateTime.class, ZonedDateTime.class, Year.class, YearMonth.class, MonthDay.class,
+				ZoneOffset.class, ZoneRules.class, HijrahDate.class, JapaneseDate.class, MinguoDate.class, ThaiBuddhistDate.class,
+				JapaneseEra.class, DateTimeFormatter.class);
+		try {
+			// the ZoneId's that are not ZoneOffset's
+			registerImmutable(getClass().getClassLoader().loadClass("java.time.ZoneRegion"));
+		} catch (ClassNotFoundException e) {
+			// ignore, a jdk with other ZoneId's
+		}
 	}
 
 	protected void registerKnownConstants() {
@@ -193,6 +724,7 @@ public class Cloner {
 	public void registerCloningStrategy(ICloningStrategy strategy) {
 		if (strategy == null) throw new NullPointerException("strategy can't be null");
 		cloningStrategies.add(strategy);
+		configurationChanged();
 	}
 
 	/**
@@ -236,12 +768,14 @@ public class Cloner {
 		for (final Class<?> cl : c) {
 			ignored.add(cl);
 		}
+		configurationChanged();
 	}
 
 	public void dontCloneInstanceOf(final Class<?>... c) {
 		for (final Class<?> cl : c) {
 			ignoredInstanceOf.add(cl);
 		}
+		configurationChanged();
 	}
 
 	public void setDontCloneInstanceOf(final Class<?>... c) {
@@ -257,11 +791,13 @@ public class Cloner {
 		for (final Class<?> cl : c) {
 			nullInstead.add(cl);
 		}
+		configurationChanged();
 	}
 
 	// spring framework friendly version of nullInsteadOfClone
 	public void setExtraNullInsteadOfClone(final Set<Class<?>> set) {
 		nullInstead.addAll(set);
+		configurationChanged();
 	}
 
 	/**
@@ -273,20 +809,32 @@ public class Cloner {
 		for (final Class<?> cl : c) {
 			ignored.add(cl);
 		}
+		configurationChanged();
 	}
 
 	// spring framework friendly version of registerImmutable
 	public void setExtraImmutables(final Set<Class<?>> set) {
 		ignored.addAll(set);
+		configurationChanged();
 	}
 
 	public void registerFastCloner(final Class<?> c, final IFastCloner fastCloner) {
 		if (fastCloners.containsKey(c)) throw new IllegalArgumentException(c + " already fast-cloned!");
 		fastCloners.put(c, fastCloner);
+		configurationChanged();
 	}
 
 	public void unregisterFastCloner(final Class<?> c) {
 		fastCloners.remove(c);
+		configurationChanged();
+	}
+
+	// discards everything cached per class
+	private void configurationChanged() {
+		clonePlans.clear();
+		classHandlers.clear();
+		inferredImmutables.clear();
+		infrastructureClasses.clear();
 	}
 
 	/**
@@ -321,204 +869,1089 @@ public class Cloner {
 		if (dumpCloned != null) {
 			dumpCloned.startCloning(o.getClass());
 		}
-		final Map<Object, Object> clones = new IdentityHashMap<Object, Object>(16);
+		if (isParallel()) {
+			try {
+				return cloneRoot(o, new ConcurrentCloneMap(forkJoinPool, parallelThreshold));
+			} catch (final IllegalAccessException e) {
+				throw new CloningException("error during cloning of " + o, e);
+			}
+		}
+		final IdentityCloneMap clones = acquireClones(o.getClass());
 		try {
-			return cloneInternal(o, clones);
+			return cloneRoot(o, clones);
 		} catch (final IllegalAccessException e) {
 			throw new CloningException("error during cloning of " + o, e);
+		} finally {
+			releaseClones(o.getClass(), clones);
 		}
 	}
 
-	public <T> T deepCloneDontCloneInstances(final T o, final Object... dontCloneThese) {
+	/**
+	 * deep clones o within a budget: the clone is aborted with a CloningException as soon as it creates
+	 * more objects or (estimated) bytes, or goes deeper, than the budget allows. The message of the
+	 * exception names the path, from o, into the biggest part of the graph cloned so far, i.e.
+	 * "Order.customer.history (52000 objects)". Every object is charged before it's copied, so a collection
+	 * or an array too big for the budget aborts the clone before its elements are copied. The clone is always
+	 * recursive and never parallel.
+	 *
+	 * @param <T>    the type of o
+	 * @param o      the object to be deep-cloned
+	 * @param budget the limits of the clone
+	 * @return a deep-clone of o
+	 */
+	public <T> T deepClone(final T o, final CloneBudget budget) {
 		if (o == null) return null;
 		if (!cloningEnabled) return o;
 		if (dumpCloned != null) {
 			dumpCloned.startCloning(o.getClass());
 		}
-		final Map<Object, Object> clones = new IdentityHashMap<Object, Object>(16);
-		for (final Object dc : dontCloneThese) {
-			clones.put(dc, dc);
-		}
+		final IdentityCloneMap clones = acquireClones(o.getClass());
 		try {
-			return cloneInternal(o, clones);
+			return cloneInternal(o, new CloneBudgetMap(clones, budget));
 		} catch (final IllegalAccessException e) {
 			throw new CloningException("error during cloning of " + o, e);
+		} finally {
+			releaseClones(o.getClass(), clones);
 		}
 	}
 
 	/**
-	 * shallow clones "o". This means that if c=shallowClone(o) then
-	 * c!=o. Any change to c won't affect o.
+	 * clones the part of o's graph selected by spec and shares the rest with o, i.e.
+	 * deepClone(order, CloneSpec.all().include("lines[*].price")) clones the order, its lines and their
+	 * prices while sharing the customer. An instance reached along several paths is cloned once, as
+	 * selected by the first path it is reached by. The clone is always recursive and never parallel. An
+	 * overridden fastClone() deep clones all of the elements of the collections it clones.
 	 *
-	 * @param <T> the type of o
-	 * @param o   the object to be shallow-cloned
-	 * @return a shallow clone of "o"
+	 * @param <T>  the type of o
+	 * @param o    the object to be cloned
+	 * @param spec the max depth and the paths to clone or share
+	 * @return a partial clone of o
 	 */
-	public <T> T shallowClone(final T o) {
+	public <T> T deepClone(final T o, final CloneSpec spec) {
 		if (o == null) return null;
 		if (!cloningEnabled) return o;
+		if (dumpCloned != null) {
+			dumpCloned.startCloning(o.getClass());
+		}
+		final IdentityCloneMap clones = acquireClones(o.getClass());
 		try {
-			return cloneInternal(o, null);
+			return new ProjectedClone(clones, spec.getMaxDepth()).project(o, spec.root(), 1);
 		} catch (final IllegalAccessException e) {
 			throw new CloningException("error during cloning of " + o, e);
+		} finally {
+			releaseClones(o.getClass(), clones);
 		}
 	}
 
-	// caches immutables for quick reference
-	private final ConcurrentHashMap<Class<?>, Boolean> immutables = new ConcurrentHashMap<Class<?>, Boolean>();
-	private boolean cloneAnonymousParent = true;
-
 	/**
-	 * override this to decide if a class is immutable. Immutable classes are not cloned.
+	 * deep clones each of the roots, as deepClone() would one by one: instances reachable from
+	 * several roots are cloned once per root. This saves the per call setup of deepClone().
 	 *
-	 * @param clz the class under check
-	 * @return true to mark clz as immutable and skip cloning it
+	 * @param <T>   the type of the roots
+	 * @param roots the objects to be deep-cloned
+	 * @return a fixed size list of the clones, in the iteration order of roots
 	 */
-	protected boolean considerImmutable(final Class<?> clz) {
-		return false;
+	public <T> List<T> deepCloneAll(final Collection<? extends T> roots) {
+		return cloneAll(roots.toArray(), false);
 	}
 
-	protected Class<?> getImmutableAnnotation() {
-		return Immutable.class;
+	/**
+	 * @see #deepCloneAll(Collection)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T[] deepCloneAll(final T[] roots) {
+		final T[] clones = (T[]) Array.newInstance(roots.getClass().getComponentType(), roots.length);
+		cloneAllInto(roots, clones, false);
+		return clones;
 	}
 
 	/**
-	 * decides if a class is to be considered immutable or not
+	 * like deepCloneAll() but the roots are cloned by fork/join tasks on the pool set via
+	 * setForkJoinPool(). Fast cloners, cloning strategies and IDumpCloned's must be thread safe.
 	 *
-	 * @param clz the class under check
-	 * @return true if the clz is considered immutable
+	 * @param <T>   the type of the roots
+	 * @param roots the objects to be deep-cloned
+	 * @return a fixed size list of the clones, in the iteration order of roots
 	 */
-	private boolean isImmutable(final Class<?> clz) {
-		final Boolean isIm = immutables.get(clz);
-		if (isIm != null) return isIm;
-		if (considerImmutable(clz)) return true;
+	public <T> List<T> deepCloneAllParallel(final Collection<? extends T> roots) {
+		return cloneAll(roots.toArray(), true);
+	}
 
-		final Class<?> immutableAnnotation = getImmutableAnnotation();
-		for (final Annotation annotation : clz.getDeclaredAnnotations()) {
-			if (annotation.annotationType() == immutableAnnotation) {
-				immutables.put(clz, Boolean.TRUE);
-				return true;
-			}
-		}
-		Class<?> c = clz.getSuperclass();
-		while (c != null && c != Object.class) {
-			for (final Annotation annotation : c.getDeclaredAnnotations()) {
-				if (annotation.annotationType() == Immutable.class) {
-					final Immutable im = (Immutable) annotation;
-					if (im.subClass()) {
-						immutables.put(clz, Boolean.TRUE);
-						return true;
-					}
-				}
-			}
-			c = c.getSuperclass();
-		}
-		immutables.put(clz, Boolean.FALSE);
-		return false;
+	/**
+	 * @see #deepCloneAllParallel(Collection)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T[] deepCloneAllParallel(final T[] roots) {
+		final T[] clones = (T[]) Array.newInstance(roots.getClass().getComponentType(), roots.length);
+		cloneAllInto(roots, clones, true);
+		return clones;
 	}
 
 	@SuppressWarnings("unchecked")
-	protected <T> T cloneInternal(final T o, final Map<Object, Object> clones) throws IllegalAccessException {
-		if (o == null) return null;
-		if (o == this) return null; // don't clone the cloner!
-		if (ignoredInstances.containsKey(o)) return o;
-		if (o instanceof Enum) return o;
-		final Class<T> clz = (Class<T>) o.getClass();
-		// skip cloning ignored classes
-		if (nullInstead.contains(clz)) return null;
-		if (ignored.contains(clz)) return o;
-		for (final Class<?> iClz : ignoredInstanceOf) {
-			if (iClz.isAssignableFrom(clz)) return o;
-		}
-		if (isImmutable(clz)) return o;
-		if (o instanceof IFreezable) {
-			final IFreezable f = (IFreezable) o;
-			if (f.isFrozen()) return o;
-		}
-		final Object clonedPreviously = clones != null ? clones.get(o) : null;
-		if (clonedPreviously != null) return (T) clonedPreviously;
+	private <T> List<T> cloneAll(final Object[] roots, final boolean parallel) {
+		cloneAllInto(roots, roots, parallel);
+		return (List<T>) Arrays.asList(roots);
+	}
 
-		final Object fastClone = fastClone(o, clones);
-		if (fastClone != null) {
-			if (clones != null) {
-				clones.put(o, fastClone);
+	// clones roots[i] into clones[i], roots and clones can be the same array
+	private void cloneAllInto(final Object[] roots, final Object[] clones, final boolean parallel) {
+		if (!parallel || roots.length < 2) {
+			cloneRoots(roots, clones, 0, roots.length);
+		} else {
+			final int chunk = Math.max(1, roots.length / (forkJoinPool.getParallelism() * 4));
+			final CloneRoots task = new CloneRoots(roots, clones, 0, roots.length, chunk);
+			if (ForkJoinTask.inForkJoinPool()) {
+				task.invoke();
+			} else {
+				forkJoinPool.invoke(task);
 			}
-			return (T) fastClone;
 		}
+	}
 
-		if (dumpCloned != null) {
-			dumpCloned.startCloning(o.getClass());
+	private void cloneRoots(final Object[] roots, final Object[] clones, final int from, final int to) {
+		if (!cloningEnabled || isParallel()) {
+			for (int i = from; i < to; i++) {
+				clones[i] = deepClone(roots[i]);
+			}
+			return;
 		}
-		if (clz.isArray()) {
-			return cloneArray(o, clones);
+		Class<?> rootClass = null;
+		for (int i = from; i < to && rootClass == null; i++) {
+			if (roots[i] != null) rootClass = roots[i].getClass();
 		}
-
-		return cloneObject(o, clones, clz);
-	}
-
-	// clones o, no questions asked!
-	private <T> T cloneObject(T o, Map<Object, Object> clones, Class<T> clz) throws IllegalAccessException {
-		final T newInstance = newInstance(clz);
-		if (clones != null) {
-			clones.put(o, newInstance);
+		if (rootClass == null) {
+			Arrays.fill(clones, from, to, null);
+			return;
 		}
-		final List<Field> fields = allFields(clz);
-		for (final Field field : fields) {
-			final int modifiers = field.getModifiers();
-			if (!Modifier.isStatic(modifiers)) {
-				if (!(nullTransient && Modifier.isTransient(modifiers))) {
-					// request by Jonathan : transient fields can be null-ed
-					final Object fieldObject = field.get(o);
-					final boolean shouldClone = (cloneSynthetics || !field.isSynthetic()) && (cloneAnonymousParent || !isAnonymousParent(field));
-					final Object fieldObjectClone = clones != null ? (shouldClone ? applyCloningStrategy(clones, o, fieldObject, field) : fieldObject) : fieldObject;
-					field.set(newInstance, fieldObjectClone);
-					if (dumpCloned != null && fieldObjectClone != fieldObject) {
-						dumpCloned.cloning(field, o.getClass());
-					}
+		// one clones table for all roots, cleared in between
+		final IdentityCloneMap table = acquireClones(rootClass);
+		int i = from;
+		try {
+			for (; i < to; i++) {
+				final Object root = roots[i];
+				if (root != null && dumpCloned != null) {
+					dumpCloned.startCloning(root.getClass());
 				}
+				clones[i] = cloneRoot(root, table);
+				table.clear();
 			}
+		} catch (final IllegalAccessException e) {
+			throw new CloningException("error during cloning of " + roots[i], e);
+		} finally {
+			releaseClones(rootClass, table);
 		}
-		return newInstance;
 	}
 
-	private Object applyCloningStrategy(Map<Object, Object> clones, Object o, Object fieldObject, Field field) throws IllegalAccessException {
-		for (ICloningStrategy strategy : cloningStrategies) {
-			ICloningStrategy.Strategy s = strategy.strategyFor(o, field);
-			if (s == ICloningStrategy.Strategy.NULL_INSTEAD_OF_CLONE) return null;
-			if (s == ICloningStrategy.Strategy.SAME_INSTANCE_INSTEAD_OF_CLONE) return fieldObject;
+	private final class CloneRoots extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] roots;
+		private final Object[] clones;
+		private final int from;
+		private final int to;
+		private final int chunk;
+
+		CloneRoots(final Object[] roots, final Object[] clones, final int from, final int to, final int chunk) {
+			this.roots = roots;
+			this.clones = clones;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
 		}
-		return cloneInternal(fieldObject, clones);
-	}
 
-	@SuppressWarnings("unchecked")
-	private <T> T cloneArray(T o, Map<Object, Object> clones) throws IllegalAccessException {
-		final Class<T> clz = (Class<T>) o.getClass();
-		final int length = Array.getLength(o);
-		final T newInstance = (T) Array.newInstance(clz.getComponentType(), length);
-		if (clones != null) {
-			clones.put(o, newInstance);
-		}
-		if (clz.getComponentType().isPrimitive() || isImmutable(clz.getComponentType())) {
-			System.arraycopy(o, 0, newInstance, 0, length);
-		} else {
-			for (int i = 0; i < length; i++) {
-				final Object v = Array.get(o, i);
-				final Object clone = clones != null ? cloneInternal(v, clones) : v;
-				Array.set(newInstance, i, clone);
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				cloneRoots(roots, clones, from, to);
+			} else {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new CloneRoots(roots, clones, from, mid, chunk), new CloneRoots(roots, clones, mid, to, chunk));
 			}
 		}
-		return newInstance;
-	}
-
-	private boolean isAnonymousParent(final Field field) {
-		return "this$0".equals(field.getName());
 	}
 
 	/**
-	 * copies all properties from src to dest. Src and dest can be of different class, provided they contain same field names/types
+	 * deep clones "o" whose object graph must be a tree: no instance is referenced twice and there
+	 * are no cycles. Cloned instances are not tracked, which makes this cheaper than deepClone().
 	 *
-	 * @param src  the source object
-	 * @param dest the destination object which must contain as minimum all the fields of src
+	 * If the graph is not a tree, instances referenced more than once are cloned once per reference
+	 * (see setVerifyTrees() to detect that) and cycles end in a CloningException, at the latest once
+	 * more than maxTreeObjects instances are cloned (see setMaxTreeObjects()).
+	 *
+	 * @param <T> the type of "o"
+	 * @param o   the tree to be deep-cloned
+	 * @return a deep-clone of "o".
+	 */
+	public <T> T deepCloneTree(final T o) {
+		if (o == null) return null;
+		if (!cloningEnabled) return o;
+		if (dumpCloned != null) {
+			dumpCloned.startCloning(o.getClass());
+		}
+		try {
+			return cloneRoot(o, new TreeCloneMap(verifyTrees, maxTreeObjects));
+		} catch (final IllegalAccessException e) {
+			throw new CloningException("error during cloning of " + o, e);
+		} catch (final StackOverflowError e) {
+			throw new CloningException("graph of " + o.getClass() + " has a cycle or is too deep for deepCloneTree(), use deepClone()", e);
+		}
+	}
+
+	public Traversal getTraversal() {
+		return traversal;
+	}
+
+	/**
+	 * chooses how deep clones walk the object graph. RECURSIVE (the default) needs a call stack as deep
+	 * as the graph, so very deep graphs (i.e. long chains of linked objects) can overflow the stack.
+	 * DEPTH_FIRST and BREADTH_FIRST keep the pending work in a queue instead. Fast cloners still
+	 * clone their elements before returning, so every collection nested in another one adds a few stack
+	 * frames. A subclass overriding fastClone() always clones recursively, as the override clones the
+	 * elements with the recursive deepCloner.
+	 *
+	 * @param traversal the traversal used by deepClone(), deepCloneTree() and deepCloneDontCloneInstances()
+	 */
+	public void setTraversal(final Traversal traversal) {
+		if (traversal == null) throw new NullPointerException("traversal can't be null");
+		this.traversal = traversal;
+	}
+
+	// entry point of all deep clones
+	private <T> T cloneRoot(final T o, final Map<Object, Object> clones) throws IllegalAccessException {
+		if (traversal == Traversal.RECURSIVE || fastCloneOverridden) return cloneInternal(o, clones);
+		return new IterativeClone(clones, traversal == Traversal.BREADTH_FIRST).cloneRoot(o);
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * enables parallel deep clones: arrays, ArrayList's and HashMap's with at least parallelThreshold
+	 * elements have their elements cloned by fork/join tasks (see setForkJoinPool()). Instances
+	 * reachable from several tasks are still cloned once, and cycles are preserved. This only applies
+	 * to the RECURSIVE traversal, deepClone() and deepCloneDontCloneInstances(). Fast cloners, cloning
+	 * strategies and IDumpCloned's must be thread safe. Default is 0, which disables parallel clones.
+	 *
+	 * @param parallelThreshold the minimum size of the collections to clone in parallel, 0 for none
+	 */
+	public void setParallelThreshold(final int parallelThreshold) {
+		if (parallelThreshold < 0) throw new IllegalArgumentException("parallelThreshold can't be negative");
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool;
+	}
+
+	/**
+	 * @param forkJoinPool the pool running parallel clones, by default the common pool
+	 */
+	public void setForkJoinPool(final ForkJoinPool forkJoinPool) {
+		if (forkJoinPool == null) throw new NullPointerException("forkJoinPool can't be null");
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	private boolean isParallel() {
+		return parallelThreshold > 0 && traversal == Traversal.RECURSIVE;
+	}
+
+	public boolean isVerifyTrees() {
+		return verifyTrees;
+	}
+
+	/**
+	 * debugging aid: if true, deepCloneTree() throws a CloningException when it meets an instance
+	 * for the second time, i.e. when the graph isn't a tree. This costs as much as deepClone().
+	 *
+	 * @param verifyTrees true to verify graphs passed to deepCloneTree()
+	 */
+	public void setVerifyTrees(final boolean verifyTrees) {
+		this.verifyTrees = verifyTrees;
+	}
+
+	public int getMaxTreeObjects() {
+		return maxTreeObjects;
+	}
+
+	/**
+	 * deepCloneTree() throws a CloningException once it cloned more than maxTreeObjects instances. That
+	 * guards against cycles with every traversal: DEPTH_FIRST and BREADTH_FIRST would otherwise clone a
+	 * cycle forever. Default is 10,000,000.
+	 *
+	 * @param maxTreeObjects the maximum number of instances cloned by deepCloneTree()
+	 */
+	public void setMaxTreeObjects(final int maxTreeObjects) {
+		if (maxTreeObjects < 1) throw new IllegalArgumentException("maxTreeObjects must be positive");
+		this.maxTreeObjects = maxTreeObjects;
+	}
+
+	public <T> T deepCloneDontCloneInstances(final T o, final Object... dontCloneThese) {
+		if (o == null) return null;
+		if (!cloningEnabled) return o;
+		if (dumpCloned != null) {
+			dumpCloned.startCloning(o.getClass());
+		}
+		final Map<Object, Object> clones = isParallel() ? new ConcurrentCloneMap(forkJoinPool, parallelThreshold) : acquireClones(o.getClass());
+		try {
+			for (final Object dc : dontCloneThese) {
+				clones.put(dc, dc);
+			}
+			return cloneRoot(o, clones);
+		} catch (final IllegalAccessException e) {
+			throw new CloningException("error during cloning of " + o, e);
+		} finally {
+			if (clones instanceof IdentityCloneMap) releaseClones(o.getClass(), (IdentityCloneMap) clones);
+		}
+	}
+
+	// tables bigger than this are not kept for reuse, so that one huge clone doesn't pin memory
+	private static final int MAX_POOLED_CLONES_CAPACITY = 1 << 16;
+
+	// graphs up to this size fit in a new clones table, so their size isn't recorded
+	private static final int MIN_RECORDED_CLONES_SIZE = 20;
+
+	/**
+	 * returns this thread's clones table, presized for the previous deep clones of rootClass. Nested
+	 * deep clones (i.e. from within a fast cloner) get a table of their own.
+	 */
+	private IdentityCloneMap acquireClones(final Class<?> rootClass) {
+		final IdentityCloneMap pooled = pooledClones.get();
+		final Integer expectedSize = cloneSizes.isEmpty() ? null : cloneSizes.get(rootClass);
+		IdentityCloneMap clones = pooled;
+		if (clones == null || clones.inUse) {
+			clones = new IdentityCloneMap(expectedSize == null ? 0 : expectedSize);
+			if (pooled == null) pooledClones.set(clones);
+		} else if (expectedSize != null) {
+			clones.ensureCapacity(expectedSize);
+		}
+		clones.inUse = true;
+		return clones;
+	}
+
+	private void releaseClones(final Class<?> rootClass, final IdentityCloneMap clones) {
+		final int size = clones.size();
+		if (size > MIN_RECORDED_CLONES_SIZE) {
+			final Integer previous = cloneSizes.get(rootClass);
+			if (previous == null || size > previous || size < previous / 2) {
+				cloneSizes.put(rootClass, size);
+			}
+		}
+		clones.clear();
+		clones.inUse = false;
+		if (clones.capacity() > MAX_POOLED_CLONES_CAPACITY && pooledClones.get() == clones) {
+			pooledClones.remove();
+		}
+	}
+
+	/**
+	 * shallow clones "o". This means that if c=shallowClone(o) then
+	 * c!=o. Any change to c won't affect o.
+	 *
+	 * @param <T> the type of o
+	 * @param o   the object to be shallow-cloned
+	 * @return a shallow clone of "o"
+	 */
+	public <T> T shallowClone(final T o) {
+		if (o == null) return null;
+		if (!cloningEnabled) return o;
+		try {
+			return cloneInternal(o, null);
+		} catch (final IllegalAccessException e) {
+			throw new CloningException("error during cloning of " + o, e);
+		}
+	}
+
+	// caches immutables for quick reference
+	private final ConcurrentHashMap<Class<?>, Boolean> immutables = new ConcurrentHashMap<Class<?>, Boolean>();
+	private boolean cloneAnonymousParent = true;
+
+	/**
+	 * override this to decide if a class is immutable. Immutable classes are not cloned.
+	 *
+	 * @param clz the class under check
+	 * @return true to mark clz as immutable and skip cloning it
+	 */
+	protected boolean considerImmutable(final Class<?> clz) {
+		return false;
+	}
+
+	protected Class<?> getImmutableAnnotation() {
+		return Immutable.class;
+	}
+
+	/**
+	 * decides if a class is to be considered immutable or not
+	 *
+	 * @param clz the class under check
+	 * @return true if the clz is considered immutable
+	 */
+	private boolean isImmutable(final Class<?> clz) {
+		if (isDeclaredImmutable(clz)) return true;
+		return inferImmutables && isInferredImmutable(clz);
+	}
+
+	// immutable as per registerImmutable(), @Immutable or considerImmutable()
+	private boolean isDeclaredImmutable(final Class<?> clz) {
+		final Boolean isIm = immutables.get(clz);
+		if (isIm != null) return isIm;
+		if (considerImmutable(clz)) return true;
+
+		final Class<?> immutableAnnotation = getImmutableAnnotation();
+		for (final Annotation annotation : clz.getDeclaredAnnotations()) {
+			if (annotation.annotationType() == immutableAnnotation) {
+				immutables.put(clz, Boolean.TRUE);
+				return true;
+			}
+		}
+		Class<?> c = clz.getSuperclass();
+		while (c != null && c != Object.class) {
+			for (final Annotation annotation : c.getDeclaredAnnotations()) {
+				if (annotation.annotationType() == Immutable.class) {
+					final Immutable im = (Immutable) annotation;
+					if (im.subClass()) {
+						immutables.put(clz, Boolean.TRUE);
+						return true;
+					}
+				}
+			}
+			c = c.getSuperclass();
+		}
+		immutables.put(clz, Boolean.FALSE);
+		return false;
+	}
+
+	// caches the classes analyzed by isInferredImmutable(), depends on the configuration
+	private final ConcurrentHashMap<Class<?>, Boolean> inferredImmutables = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	private boolean isInferredImmutable(final Class<?> clz) {
+		final Boolean isIm = inferredImmutables.get(clz);
+		if (isIm != null) return isIm;
+		final Set<Class<?>> assumed = new HashSet<Class<?>>();
+		final boolean immutable = inferImmutable(clz, assumed);
+		if (immutable) {
+			// all assumptions held
+			for (final Class<?> c : assumed) inferredImmutables.put(c, Boolean.TRUE);
+		} else {
+			inferredImmutables.put(clz, Boolean.FALSE);
+		}
+		return immutable;
+	}
+
+	/**
+	 * classes in "assumed" are being analyzed further up the call stack, they are assumed immutable
+	 * so that i.e. a final class with a final field of its own type can be inferred immutable
+	 */
+	private boolean inferImmutable(final Class<?> clz, final Set<Class<?>> assumed) {
+		if (nullInstead.contains(clz)) return false;
+		// registered immutables and classes not to be cloned are shared anyway
+		if (ignored.contains(clz) || isDeclaredImmutable(clz)) return true;
+		for (final Class<?> iClz : ignoredInstanceOf) {
+			if (iClz.isAssignableFrom(clz)) return true;
+		}
+		final Boolean isIm = inferredImmutables.get(clz);
+		if (isIm != null) return isIm;
+		if (!assumed.add(clz)) return true;
+		if (clz.isArray() || clz.isInterface() || !Modifier.isFinal(clz.getModifiers())) return false;
+		if (!cloningStrategies.isEmpty()) return false;
+		for (Class<?> c = clz; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (final Field field : c.getDeclaredFields()) {
+				final int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers)) continue;
+				if (!Modifier.isFinal(modifiers)) return false;
+				// the clone would have it nulled
+				if (nullTransient && Modifier.isTransient(modifiers)) return false;
+				final Class<?> type = field.getType();
+				if (type.isPrimitive() || type.isEnum()) continue;
+				if (!inferImmutable(type, assumed)) return false;
+			}
+		}
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> T cloneInternal(final T o, final Map<Object, Object> clones) throws IllegalAccessException {
+		if (o == null) return null;
+		final Class<T> clz = (Class<T>) o.getClass();
+		final ClassHandler handler = classHandler(clz);
+		final Object notCloned = notCloned(o, handler);
+		if (notCloned != MUST_CLONE) return (T) notCloned;
+		final Object clonedPreviously = clones != null ? clones.get(o) : null;
+		if (clonedPreviously != null) {
+			if (clones instanceof ConcurrentCloneMap && ((ConcurrentCloneMap) clones).isFilledElsewhere(o)) {
+				completeClone(o, clonedPreviously, handler, (ConcurrentCloneMap) clones);
+			}
+			return (T) clonedPreviously;
+		}
+
+		if (clones instanceof CloneBudgetMap) {
+			final CloneBudgetMap budget = (CloneBudgetMap) clones;
+			budget.enter(o);
+			try {
+				return cloneNew(o, clz, handler, clones);
+			} finally {
+				budget.exit();
+			}
+		}
+		return cloneNew(o, clz, handler, clones);
+	}
+
+	// clones o, which isn't shared nor cloned yet
+	@SuppressWarnings("unchecked")
+	private <T> T cloneNew(final T o, final Class<T> clz, final ClassHandler handler, final Map<Object, Object> clones) throws IllegalAccessException {
+		if (handler.kind == ClassHandler.Kind.FAST_CLONE_SUBCLASS) {
+			return (T) cloneSubclass(o, handler, deepCloner, clones);
+		}
+		if (handler.kind == ClassHandler.Kind.FAST_CLONE) {
+			final Object fastClone = fastCloneOverridden ? fastClone(o, clones) : handler.fastCloner.clone(o, deepCloner, clones);
+			if (fastClone != null) {
+				if (clones != null) {
+					// in a parallel clone, another task may have cloned o meanwhile
+					final Object previous = clones.putIfAbsent(o, fastClone);
+					if (previous != null) return (T) previous;
+				}
+				return (T) fastClone;
+			}
+		}
+
+		if (dumpCloned != null) {
+			dumpCloned.startCloning(o.getClass());
+		}
+		if (clz.isArray()) {
+			return cloneArray(o, clones);
+		}
+
+		return cloneObject(o, clones, clz, handler.plan != null ? handler.plan : clonePlan(clz));
+	}
+
+	// returned by notCloned() and cloningStrategyFor() when the object must be cloned
+	private static final Object MUST_CLONE = new Object();
+
+	/**
+	 * decides if o is not to be cloned
+	 *
+	 * @return o if it must be used as is, null if null must be used instead, MUST_CLONE otherwise
+	 */
+	private Object notCloned(final Object o, final ClassHandler handler) {
+		if (o == this) return null; // don't clone the cloner!
+		if (handler.mayBeConstant && ignoredInstances.containsKey(o)) return o;
+		if (handler.kind == ClassHandler.Kind.SHARE) return o;
+		if (handler.kind == ClassHandler.Kind.NULL_INSTEAD) return null;
+		if (handler.mayBeFrozen && ((IFreezable) o).isFrozen()) return o;
+		return MUST_CLONE;
+	}
+
+	private ClassHandler classHandler(final Class<?> clz) {
+		ClassHandler handler = classHandlers.get(clz);
+		if (handler == null) {
+			handler = buildClassHandler(clz);
+			final ClassHandler previous = classHandlers.putIfAbsent(clz, handler);
+			if (previous != null) handler = previous;
+		}
+		return handler;
+	}
+
+	private ClassHandler buildClassHandler(final Class<?> clz) {
+		final boolean mayBeConstant = constantClasses.contains(clz);
+		if (isShared(clz)) return new ClassHandler(ClassHandler.Kind.SHARE, mayBeConstant, false, null, null);
+		if (nullInstead.contains(clz)) return new ClassHandler(ClassHandler.Kind.NULL_INSTEAD, mayBeConstant, false, null, null);
+		final boolean mayBeFrozen = IFreezable.class.isAssignableFrom(clz);
+		final IFastCloner fastCloner = fastClonerFor(clz);
+		if (fastCloner != null || fastCloneOverridden) {
+			return new ClassHandler(ClassHandler.Kind.FAST_CLONE, mayBeConstant, mayBeFrozen, fastCloner, null);
+		}
+		if (clz.isArray()) return new ClassHandler(ClassHandler.Kind.ARRAY, mayBeConstant, mayBeFrozen, null, null);
+		if (fastClonersForSubclasses) {
+			final ClassHandler handler = buildSubclassHandler(clz, mayBeConstant, mayBeFrozen);
+			if (handler != null) return handler;
+		}
+		return new ClassHandler(ClassHandler.Kind.OBJECT, mayBeConstant, mayBeFrozen, null, clonePlan(clz));
+	}
+
+	// fast cloners whose clone has all its state in fields of the cloned class and its superclasses
+	private static final Set<Class<?>> SUBCLASS_SAFE_FAST_CLONERS = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+			FastClonerArrayList.class, FastClonerLinkedList.class, FastClonerHashSet.class, FastClonerHashMap.class,
+			FastClonerLinkedHashMap.class, FastClonerTreeMap.class, FastClonerTreeSet.class, FastClonerConcurrentHashMap.class,
+			FastClonerConcurrentLinkedQueue.class, FastClonerConcurrentSkipListMap.class, FastClonerConcurrentSkipListSet.class,
+			FastClonerConcurrentLinkedDeque.class, FastClonerCopyOnWriteArrayList.class, FastClonerCopyOnWriteArraySet.class,
+			FastClonerLinkedBlockingQueue.class, FastClonerLinkedBlockingDeque.class, FastClonerArrayBlockingQueue.class,
+			FastClonerVector.class, FastClonerHashtable.class, FastClonerArrayDeque.class, FastClonerPriorityQueue.class,
+			FastClonerEnumMap.class, FastClonerIdentityHashMap.class, FastClonerWeakHashMap.class, FastClonerBitSet.class));
+
+	// the fields where jdk collections cache their views, as declaring class and field name
+	private static final Set<String> CACHED_VIEWS = new HashSet<String>(Arrays.asList(
+			"java.util.AbstractMap.keySet", "java.util.AbstractMap.values", "java.util.HashMap.entrySet",
+			"java.util.TreeMap.entrySet", "java.util.TreeMap.navigableKeySet", "java.util.TreeMap.descendingMap",
+			"java.util.Hashtable.keySet", "java.util.Hashtable.entrySet", "java.util.Hashtable.values",
+			"java.util.EnumMap.entrySet", "java.util.IdentityHashMap.entrySet", "java.util.WeakHashMap.entrySet",
+			"java.util.concurrent.ConcurrentHashMap.keySet", "java.util.concurrent.ConcurrentHashMap.values",
+			"java.util.concurrent.ConcurrentHashMap.entrySet", "java.util.concurrent.ConcurrentSkipListMap.keySet",
+			"java.util.concurrent.ConcurrentSkipListMap.values", "java.util.concurrent.ConcurrentSkipListMap.entrySet",
+			"java.util.concurrent.ConcurrentSkipListMap.descendingMap"));
+
+	/**
+	 * true for the fields where jdk collections cache their views, i.e. HashMap.entrySet. The views of the
+	 * ancestor's clone are views of that discarded instance, so the subclass clone recreates its own. Other
+	 * transient collections, like HashSet.map, are the state of the collection and are moved to the clone.
+	 */
+	private static boolean isCachedView(final Field field) {
+		return CACHED_VIEWS.contains(field.getDeclaringClass().getName() + "." + field.getName());
+	}
+
+	/**
+	 * @return a FAST_CLONE_SUBCLASS handler if an ancestor of clz has a built-in fast cloner and no class
+	 * in between overrides clone(), otherwise null
+	 */
+	private ClassHandler buildSubclassHandler(final Class<?> clz, final boolean mayBeConstant, final boolean mayBeFrozen) {
+		for (Class<?> c = clz; c != Object.class && c != null; c = c.getSuperclass()) {
+			final IFastCloner fastCloner = fastCloners.get(c);
+			if (fastCloner != null) {
+				if (!SUBCLASS_SAFE_FAST_CLONERS.contains(fastCloner.getClass())) return null;
+				final List<Field> added = new ArrayList<Field>();
+				final List<Field> inherited = new ArrayList<Field>();
+				for (final Field field : allFields(clz)) {
+					if (Modifier.isStatic(field.getModifiers())) continue;
+					if (!field.getDeclaringClass().isAssignableFrom(c)) added.add(field);
+					else if (!isCachedView(field)) inherited.add(field);
+				}
+				return new ClassHandler(ClassHandler.Kind.FAST_CLONE_SUBCLASS, mayBeConstant, mayBeFrozen, fastCloner, buildClonePlan(clz, added, false), accessors(inherited));
+			}
+			try {
+				// some fast cloners start from clone()
+				c.getDeclaredMethod("clone");
+				return null;
+			} catch (final NoSuchMethodException e) {
+				// not overridden here
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * clones a FAST_CLONE_SUBCLASS instance: the ancestor's fast cloner clones the ancestor's state, which
+	 * is moved to a new instance of the subclass, then the fields of the subclass are cloned as per the plan.
+	 */
+	private Object cloneSubclass(final Object o, final ClassHandler handler, final IDeepCloner cloner, final Map<Object, Object> clones) throws IllegalAccessException {
+		final Object ancestorClone = handler.fastCloner.clone(o, cloner, clones);
+		final Object clone = newInstance(o.getClass());
+		for (final IFieldAccessor accessor : handler.inherited) {
+			accessor.copy(ancestorClone, clone);
+		}
+		if (clones != null) {
+			final Object previous = register(clones, o, clone);
+			if (previous != null) return previous;
+		}
+		final ClassClonePlan plan = handler.plan;
+		if (plan.infrastructure.length > 0) reportInfrastructure(o, plan);
+		for (int i = 0; i < plan.fields.length; i++) {
+			final IFieldAccessor accessor = plan.accessors[i];
+			final ClassClonePlan.Action action = plan.actions[i];
+			if (clones == null || action == ClassClonePlan.Action.COPY_PRIMITIVE || action == ClassClonePlan.Action.SHARE) {
+				accessor.copy(o, clone);
+				continue;
+			}
+			final Object fieldObject = accessor.get(o);
+			Object fieldObjectClone = action == ClassClonePlan.Action.APPLY_STRATEGY ? cloningStrategyFor(o, fieldObject, plan.fields[i]) : MUST_CLONE;
+			if (fieldObjectClone == MUST_CLONE) fieldObjectClone = cloner.deepClone(fieldObject, clones);
+			accessor.set(clone, fieldObjectClone);
+			reportInfrastructure(plan.fields[i], fieldObject, fieldObjectClone);
+			if (dumpCloned != null && fieldObjectClone != fieldObject) {
+				dumpCloned.cloning(plan.fields[i], o.getClass());
+			}
+		}
+		filled(clones, o);
+		return clone;
+	}
+
+	// registers the clone of o before it's filled. In a parallel clone, it's marked as being filled until filled()
+	private static Object register(final Map<Object, Object> clones, final Object o, final Object clone) {
+		if (clones instanceof ConcurrentCloneMap) return ((ConcurrentCloneMap) clones).putIfAbsentFilling(o, clone);
+		return clones.putIfAbsent(o, clone);
+	}
+
+	private static void filled(final Map<Object, Object> clones, final Object o) {
+		if (clones instanceof ConcurrentCloneMap) ((ConcurrentCloneMap) clones).filled(o);
+	}
+
+	/**
+	 * fills the clone of o while another task of a parallel clone is filling it too, so that a partial clone
+	 * is never used, i.e. hashed as a key. Both tasks set the same clones.
+	 */
+	private void completeClone(final Object o, final Object clone, final ClassHandler handler, final ConcurrentCloneMap clones) throws IllegalAccessException {
+		clones.helping(o);
+		if (o.getClass().isArray()) {
+			final Object[] src = (Object[]) o;
+			final Object[] dest = (Object[]) clone;
+			for (int i = 0; i < src.length; i++) {
+				final Object v = src[i];
+				if (v == null) continue;
+				final Object c = cloneInternal(v, clones);
+				if (c != v) dest[i] = c;
+			}
+		} else {
+			final ClassClonePlan plan = handler.plan != null ? handler.plan : clonePlan(o.getClass());
+			for (int i = 0; i < plan.fields.length; i++) {
+				final IFieldAccessor accessor = plan.accessors[i];
+				final ClassClonePlan.Action action = plan.actions[i];
+				if (action == ClassClonePlan.Action.COPY_PRIMITIVE || action == ClassClonePlan.Action.SHARE) {
+					accessor.copy(o, clone);
+					continue;
+				}
+				final Object fieldObject = accessor.get(o);
+				accessor.set(clone, action == ClassClonePlan.Action.DEEP_CLONE ? cloneInternal(fieldObject, clones) : applyCloningStrategy(clones, o, fieldObject, plan.fields[i]));
+			}
+		}
+		clones.helped(o);
+	}
+
+	// true if instances of exactly clz are never cloned. Note that enums are checked before nullInstead.
+	private boolean isShared(final Class<?> clz) {
+		if (Enum.class.isAssignableFrom(clz)) return true;
+		if (nullInstead.contains(clz)) return false;
+		if (ignored.contains(clz)) return true;
+		if (shareTimeZones && TimeZone.class.isAssignableFrom(clz)) return true;
+		if (shareInfrastructure && isInfrastructure(clz)) return true;
+		for (final Class<?> iClz : ignoredInstanceOf) {
+			if (iClz.isAssignableFrom(clz)) return true;
+		}
+		return isImmutable(clz);
+	}
+
+	// true if a subclass overrides the method of Cloner
+	private boolean isOverridden(final String name, final Class<?>... parameterTypes) {
+		for (Class<?> c = getClass(); c != Cloner.class; c = c.getSuperclass()) {
+			try {
+				c.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (final NoSuchMethodException e) {
+				// not in this class
+			}
+		}
+		return false;
+	}
+
+	// clones o, no questions asked!
+	@SuppressWarnings("unchecked")
+	private <T> T cloneObject(T o, Map<Object, Object> clones, Class<T> clz, final ClassClonePlan plan) throws IllegalAccessException {
+		if (plan.infrastructure.length > 0) reportInfrastructure(o, plan);
+		if (plan.objectClone != null) {
+			final T clone = (T) objectClone(plan.objectClone, o);
+			if (clones != null) {
+				final Object previous = clones.putIfAbsent(o, clone);
+				if (previous != null) return (T) previous;
+			}
+			return clone;
+		}
+		final T newInstance = newInstance(clz);
+		final Field[] fields = plan.fields;
+		final ClassClonePlan.Action[] actions = plan.actions;
+		final IFieldAccessor[] accessors = plan.accessors;
+		if (plan.flat) {
+			// filled before it's registered, so that it's never seen partially copied
+			if (plan.copier != null) {
+				plan.copier.copy(o, newInstance, deepCloner, clones);
+			} else {
+				for (final IFieldAccessor accessor : accessors) {
+					accessor.copy(o, newInstance);
+				}
+			}
+			if (clones != null) {
+				final Object previous = clones.putIfAbsent(o, newInstance);
+				if (previous != null) return (T) previous;
+			}
+			return newInstance;
+		}
+		if (clones != null) {
+			final Object previous = register(clones, o, newInstance);
+			if (previous != null) return (T) previous;
+		}
+		int start = 0;
+		// a budget labels each field it clones, which the generated copier doesn't
+		if (plan.copier != null && clones != null && dumpCloned == null && !(clones instanceof CloneBudgetMap)) {
+			plan.copier.copy(o, newInstance, deepCloner, clones);
+			start = plan.firstResidual;
+		}
+		final CloneBudgetMap budget = clones instanceof CloneBudgetMap ? (CloneBudgetMap) clones : null;
+		for (int i = start; i < fields.length; i++) {
+			final IFieldAccessor accessor = accessors[i];
+			final ClassClonePlan.Action action = actions[i];
+			if (clones == null || action == ClassClonePlan.Action.COPY_PRIMITIVE || action == ClassClonePlan.Action.SHARE) {
+				accessor.copy(o, newInstance);
+				continue;
+			}
+			final Object fieldObject = accessor.get(o);
+			if (budget != null) budget.label(fields[i]);
+			final Object fieldObjectClone = action == ClassClonePlan.Action.DEEP_CLONE ? cloneInternal(fieldObject, clones) : applyCloningStrategy(clones, o, fieldObject, fields[i]);
+			if (budget != null) budget.label(null);
+			accessor.set(newInstance, fieldObjectClone);
+			reportInfrastructure(fields[i], fieldObject, fieldObjectClone);
+			if (dumpCloned != null && fieldObjectClone != fieldObject) {
+				dumpCloned.cloning(fields[i], o.getClass());
+			}
+		}
+		filled(clones, o);
+		return newInstance;
+	}
+
+	private static Object objectClone(final MethodHandle objectClone, final Object o) {
+		try {
+			return (Object) objectClone.invokeExact(o);
+		} catch (final RuntimeException e) {
+			throw e;
+		} catch (final Error e) {
+			throw e;
+		} catch (final Throwable e) {
+			throw new CloningException("error during cloning of " + o, e);
+		}
+	}
+
+	/**
+	 * returns the (cached) clone plan for clz. The plan is built once per class and is discarded
+	 * whenever the configuration of the cloner changes.
+	 */
+	private ClassClonePlan clonePlan(final Class<?> clz) {
+		ClassClonePlan plan = clonePlans.get(clz);
+		if (plan == null) {
+			plan = buildClonePlan(clz);
+			final ClassClonePlan previous = clonePlans.putIfAbsent(clz, plan);
+			if (previous != null) plan = previous;
+		}
+		return plan;
+	}
+
+	private ClassClonePlan buildClonePlan(final Class<?> clz) {
+		return buildClonePlan(clz, allFields(clz), true);
+	}
+
+	/**
+	 * @param fields     the fields to be copied, i.e. allFields(clz)
+	 * @param fastCopies false for a plain plan, without Object.clone() or a generated copier
+	 */
+	private ClassClonePlan buildClonePlan(final Class<?> clz, final List<Field> allFields, final boolean fastCopies) {
+		final List<Field> planFields = new ArrayList<Field>();
+		final List<ClassClonePlan.Action> planActions = new ArrayList<ClassClonePlan.Action>();
+		boolean flat = true;
+		for (final Field field : allFields) {
+			final int modifiers = field.getModifiers();
+			if (Modifier.isStatic(modifiers)) continue;
+			// request by Jonathan : transient fields can be null-ed
+			if (nullTransient && Modifier.isTransient(modifiers)) {
+				flat = false;
+				continue;
+			}
+			final boolean shouldClone = (cloneSynthetics || !field.isSynthetic()) && (cloneAnonymousParent || !isAnonymousParent(field));
+			final Class<?> type = field.getType();
+			final ClassClonePlan.Action action;
+			if (!cloningStrategies.isEmpty() && shouldClone) {
+				action = ClassClonePlan.Action.APPLY_STRATEGY;
+			} else if (type.isPrimitive()) {
+				action = ClassClonePlan.Action.COPY_PRIMITIVE;
+			} else if (!shouldClone || isAlwaysShared(type)) {
+				action = ClassClonePlan.Action.SHARE;
+			} else if (shareInfrastructure && isInfrastructure(type)) {
+				action = ClassClonePlan.Action.SHARE;
+			} else {
+				action = ClassClonePlan.Action.DEEP_CLONE;
+			}
+			if (action != ClassClonePlan.Action.COPY_PRIMITIVE && action != ClassClonePlan.Action.SHARE) flat = false;
+			planFields.add(field);
+			planActions.add(action);
+		}
+		final Field[] fields = planFields.toArray(new Field[planFields.size()]);
+		final ClassClonePlan.Action[] actions = planActions.toArray(new ClassClonePlan.Action[planActions.size()]);
+		if (!fastCopies) return new ClassClonePlan(clz, fields, actions, accessors(planFields), null, 0, false, null, infrastructure(fields, actions));
+		if (flat && bulkCopyFlatClasses && !customInstantiation && Cloneable.class.isAssignableFrom(clz)) {
+			final MethodHandle objectClone = objectCloneOf(clz);
+			if (objectClone != null) return new ClassClonePlan(clz, fields, actions, accessors(planFields), null, 0, true, objectClone, infrastructure(fields, actions));
+		}
+		if (generatedCloners) {
+			final ClassClonePlan plan = buildGeneratedClonePlan(clz, planFields, planActions, flat);
+			if (plan != null) return plan;
+		}
+		return new ClassClonePlan(clz, fields, actions, accessors(planFields), null, 0, flat, null, infrastructure(fields, actions));
+	}
+
+	/**
+	 * @return Object.clone() for instances of clz (bypassing any override of it) or null if clz's package is
+	 * not open to the cloner
+	 */
+	private static MethodHandle objectCloneOf(final Class<?> clz) {
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clz, MethodHandles.lookup());
+			return lookup.findSpecial(Object.class, "clone", MethodType.methodType(Object.class), clz).asType(MethodType.methodType(Object.class, Object.class));
+		} catch (final IllegalAccessException e) {
+			return null;
+		} catch (final NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	private IFieldAccessor[] accessors(final List<Field> fields) {
+		final IFieldAccessor[] accessors = new IFieldAccessor[fields.size()];
+		for (int i = 0; i < accessors.length; i++) {
+			accessors[i] = fieldAccessStrategy.accessorFor(fields.get(i));
+		}
+		return accessors;
+	}
+
+	// orders the fields so that the ones covered by the generated copier come first
+	private ClassClonePlan buildGeneratedClonePlan(final Class<?> clz, final List<Field> fields, final List<ClassClonePlan.Action> actions, final boolean flat) {
+		final List<Field> generated = new ArrayList<Field>();
+		final List<Boolean> clone = new ArrayList<Boolean>();
+		final List<ClassClonePlan.Action> generatedActions = new ArrayList<ClassClonePlan.Action>();
+		final List<Field> residualFields = new ArrayList<Field>();
+		final List<ClassClonePlan.Action> residualActions = new ArrayList<ClassClonePlan.Action>();
+		for (int i = 0; i < fields.size(); i++) {
+			final Field field = fields.get(i);
+			final ClassClonePlan.Action action = actions.get(i);
+			if (action != ClassClonePlan.Action.APPLY_STRATEGY && FieldCopierGenerator.canAccess(clz, field)) {
+				generated.add(field);
+				generatedActions.add(action);
+				clone.add(action == ClassClonePlan.Action.DEEP_CLONE);
+			} else {
+				residualFields.add(field);
+				residualActions.add(action);
+			}
+		}
+		final IFieldCopier copier = FieldCopierGenerator.generate(clz, generated, clone);
+		if (copier == null) return null;
+		final int firstResidual = generated.size();
+		generated.addAll(residualFields);
+		generatedActions.addAll(residualActions);
+		final Field[] planFields = generated.toArray(new Field[generated.size()]);
+		final ClassClonePlan.Action[] planActions = generatedActions.toArray(new ClassClonePlan.Action[generatedActions.size()]);
+		return new ClassClonePlan(clz, planFields, planActions, accessors(generated), copier, firstResidual, flat && firstResidual == generated.size(), null, infrastructure(planFields, planActions));
+	}
+
+	// the indexes of the fields shared because of their infrastructure type
+	private int[] infrastructure(final Field[] fields, final ClassClonePlan.Action[] actions) {
+		int count = 0;
+		final int[] indexes = new int[fields.length];
+		if (!shareInfrastructure) return new int[0];
+		for (int i = 0; i < fields.length; i++) {
+			final Class<?> type = fields[i].getType();
+			if (actions[i] == ClassClonePlan.Action.SHARE ? isInfrastructure(type) : actions[i] == ClassClonePlan.Action.DEEP_CLONE && mayHoldInfrastructure(type)) {
+				indexes[count++] = i;
+			}
+		}
+		return Arrays.copyOf(indexes, count);
+	}
+
+	// true if an infrastructure instance can be assigned to a field of the type, i.e. Object or Runnable
+	private boolean mayHoldInfrastructure(final Class<?> type) {
+		for (final Class<?> infrastructureType : infrastructureTypes) {
+			if (type.isAssignableFrom(infrastructureType)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * true if every value assignable to a field of the declared type is returned as is by cloneInternal.
+	 * Only final classes (and enums) can be decided from the declared type alone.
+	 */
+	private boolean isAlwaysShared(final Class<?> type) {
+		if (type.isEnum()) return true;
+		if (!Modifier.isFinal(type.getModifiers()) || type.isArray()) return false;
+		if (nullInstead.contains(type)) return false;
+		if (ignored.contains(type)) return true;
+		for (final Class<?> iClz : ignoredInstanceOf) {
+			if (iClz.isAssignableFrom(type)) return true;
+		}
+		return isImmutable(type);
+	}
+
+	private Object applyCloningStrategy(Map<Object, Object> clones, Object o, Object fieldObject, Field field) throws IllegalAccessException {
+		final Object notCloned = cloningStrategyFor(o, fieldObject, field);
+		return notCloned == MUST_CLONE ? cloneInternal(fieldObject, clones) : notCloned;
+	}
+
+	// null or fieldObject if a cloning strategy says so, MUST_CLONE otherwise
+	private Object cloningStrategyFor(Object o, Object fieldObject, Field field) {
+		for (ICloningStrategy strategy : cloningStrategies) {
+			ICloningStrategy.Strategy s = strategy.strategyFor(o, field);
+			if (s == ICloningStrategy.Strategy.NULL_INSTEAD_OF_CLONE) return null;
+			if (s == ICloningStrategy.Strategy.SAME_INSTANCE_INSTEAD_OF_CLONE) return fieldObject;
+		}
+		return MUST_CLONE;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T cloneArray(final T o, final Map<Object, Object> clones) throws IllegalAccessException {
+		final Class<?> componentType = o.getClass().getComponentType();
+		if (componentType.isPrimitive()) {
+			final Object newInstance = clonePrimitiveArray(o);
+			if (clones != null) {
+				final Object previous = clones.putIfAbsent(o, newInstance);
+				if (previous != null) return (T) previous;
+			}
+			return (T) newInstance;
+		}
+		final Object[] src = (Object[]) o;
+		// a bulk copy, then only the slots whose element gets cloned are overwritten
+		final Object[] newInstance = src.clone();
+		if (clones == null) return (T) newInstance;
+		if (isImmutable(componentType)) {
+			final Object previous = clones.putIfAbsent(o, newInstance);
+			return (T) (previous != null ? previous : newInstance);
+		}
+		final Object previous = register(clones, o, newInstance);
+		if (previous != null) return (T) previous;
+		if (ConcurrentCloneMap.isParallel(clones, src.length)) {
+			ConcurrentCloneMap.cloneAll(newInstance, deepCloner, clones);
+		} else if (componentType.isArray() && componentType.getComponentType().isPrimitive() && dumpCloned == null && isPlainArray(componentType)) {
+			// i.e. an int[][], its rows are cloned right here
+			for (int i = 0; i < src.length; i++) {
+				final Object row = src[i];
+				if (row == null) continue;
+				Object clone = clones.get(row);
+				if (clone == null) {
+					clone = clonePrimitiveArray(row);
+					final Object previousRow = clones.putIfAbsent(row, clone);
+					if (previousRow != null) clone = previousRow;
+				}
+				newInstance[i] = clone;
+			}
+		} else {
+			final CloneBudgetMap budget = clones instanceof CloneBudgetMap ? (CloneBudgetMap) clones : null;
+			for (int i = 0; i < src.length; i++) {
+				final Object v = src[i];
+				if (v == null) continue;
+				if (budget != null) budget.label(i);
+				final Object clone = cloneInternal(v, clones);
+				if (clone != v) newInstance[i] = clone;
+			}
+			if (budget != null) budget.label(null);
+		}
+		filled(clones, o);
+		return (T) newInstance;
+	}
+
+	// true if arrays of clz are cloned as any array: they are not registered as immutables, constants etc
+	private boolean isPlainArray(final Class<?> clz) {
+		final ClassHandler handler = classHandler(clz);
+		return handler.kind == ClassHandler.Kind.ARRAY && !handler.mayBeConstant;
+	}
+
+	private static Object clonePrimitiveArray(final Object o) {
+		if (o instanceof int[]) return ((int[]) o).clone();
+		if (o instanceof long[]) return ((long[]) o).clone();
+		if (o instanceof double[]) return ((double[]) o).clone();
+		if (o instanceof byte[]) return ((byte[]) o).clone();
+		if (o instanceof char[]) return ((char[]) o).clone();
+		if (o instanceof boolean[]) return ((boolean[]) o).clone();
+		if (o instanceof float[]) return ((float[]) o).clone();
+		return ((short[]) o).clone();
+	}
+
+	private boolean isAnonymousParent(final Field field) {
+		return "this$0".equals(field.getName());
+	}
+
+	/**
+	 * copies all properties from src to dest. Src and dest can be of different class, provided they contain same field names/types
+	 *
+	 * @param src  the source object
+	 * @param dest the destination object which must contain as minimum all the fields of src
 	 */
 	public <T, E extends T> void copyPropertiesOfInheritedClass(final T src, final E dest) {
 		if (src == null) throw new IllegalArgumentException("src can't be null");
@@ -622,6 +2055,7 @@ public class Cloner {
 	 */
 	public void setCloneAnonymousParent(final boolean cloneAnonymousParent) {
 		this.cloneAnonymousParent = cloneAnonymousParent;
+		configurationChanged();
 	}
 
 	public boolean isCloneAnonymousParent() {
@@ -644,4 +2078,257 @@ public class Cloner {
 		return new Cloner(new ObjenesisInstantiationStrategy());
 	}
 
+	/**
+	 * a deep clone that keeps the objects still to be filled in a queue instead of recursing into them.
+	 * New instances are created and registered in the clones map as soon as they are met, their fields
+	 * (or elements) are filled when they are taken off the queue.
+	 *
+	 * Fast cloners need complete elements (i.e. to hash them), so elements cloned for a fast cloner are
+	 * filled before they are returned to it, including instances that were created earlier and are
+	 * still waiting in the queue.
+	 */
+	private final class IterativeClone {
+		private final Map<Object, Object> clones;
+		private final boolean breadthFirst;
+		// new instances that are not filled yet
+		private final Map<Object, Fill> pending = new IdentityHashMap<Object, Fill>();
+		private final IDeepCloner completingCloner = new IDeepCloner() {
+			public <T> T deepClone(final T o, final Map<Object, Object> clones) {
+				try {
+					return complete(o);
+				} catch (final IllegalAccessException e) {
+					// just rethrow unchecked
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+
+		IterativeClone(final Map<Object, Object> clones, final boolean breadthFirst) {
+			this.clones = clones;
+			this.breadthFirst = breadthFirst;
+		}
+
+		<T> T cloneRoot(final T o) throws IllegalAccessException {
+			final ArrayDeque<Fill> queue = new ArrayDeque<Fill>();
+			final T clone = resolve(o, queue, false);
+			drain(queue, false);
+			return clone;
+		}
+
+		// clones o and everything reachable from it before returning
+		<T> T complete(final T o) throws IllegalAccessException {
+			final ArrayDeque<Fill> queue = new ArrayDeque<Fill>();
+			final T clone = resolve(o, queue, true);
+			drain(queue, true);
+			return clone;
+		}
+
+		private void drain(final ArrayDeque<Fill> queue, final boolean completing) throws IllegalAccessException {
+			while (!queue.isEmpty()) {
+				final Fill fill = breadthFirst ? queue.pollFirst() : queue.pollLast();
+				if (fill.done) continue;
+				fill.done = true;
+				pending.remove(fill.clone);
+				if (fill.plan == null) fillArray(fill, queue, completing);
+				else fillObject(fill, queue, completing);
+			}
+		}
+
+		/**
+		 * @return the clone of o, maybe not filled yet
+		 */
+		@SuppressWarnings("unchecked")
+		private <T> T resolve(final T o, final ArrayDeque<Fill> queue, final boolean completing) throws IllegalAccessException {
+			if (o == null) return null;
+			final Class<T> clz = (Class<T>) o.getClass();
+			final ClassHandler handler = classHandler(clz);
+			final Object notCloned = notCloned(o, handler);
+			if (notCloned != MUST_CLONE) return (T) notCloned;
+			final Object clonedPreviously = clones.get(o);
+			if (clonedPreviously != null) {
+				if (completing) {
+					final Fill fill = pending.get(clonedPreviously);
+					if (fill != null) queue.add(fill);
+				}
+				return (T) clonedPreviously;
+			}
+			if (handler.kind == ClassHandler.Kind.FAST_CLONE_SUBCLASS) {
+				return (T) cloneSubclass(o, handler, completingCloner, clones);
+			}
+			if (handler.kind == ClassHandler.Kind.FAST_CLONE) {
+				final Object fastClone = handler.fastCloner.clone(o, completingCloner, clones);
+				if (fastClone != null) {
+					clones.put(o, fastClone);
+					return (T) fastClone;
+				}
+			}
+			if (dumpCloned != null) {
+				dumpCloned.startCloning(o.getClass());
+			}
+			if (clz.isArray()) {
+				final Class<?> componentType = clz.getComponentType();
+				if (componentType.isPrimitive() || isImmutable(componentType)) return cloneArray(o, clones);
+				// filled by fillArray()
+				final Object clone = ((Object[]) o).clone();
+				clones.put(o, clone);
+				schedule(new Fill(o, clone, null), queue);
+				return (T) clone;
+			}
+			final ClassClonePlan plan = handler.plan != null ? handler.plan : clonePlan(clz);
+			if (plan.flat) return cloneObject(o, clones, clz, plan);
+			final T clone = newInstance(clz);
+			clones.put(o, clone);
+			schedule(new Fill(o, clone, plan), queue);
+			return clone;
+		}
+
+		private void schedule(final Fill fill, final ArrayDeque<Fill> queue) {
+			pending.put(fill.clone, fill);
+			queue.add(fill);
+		}
+
+		private void fillArray(final Fill fill, final ArrayDeque<Fill> queue, final boolean completing) throws IllegalAccessException {
+			final Object[] src = (Object[]) fill.o;
+			final Object[] dest = (Object[]) fill.clone;
+			for (int i = 0; i < src.length; i++) {
+				final Object v = src[i];
+				if (v == null) continue;
+				final Object clone = resolve(v, queue, completing);
+				if (clone != v) dest[i] = clone;
+			}
+		}
+
+		private void fillObject(final Fill fill, final ArrayDeque<Fill> queue, final boolean completing) throws IllegalAccessException {
+			final ClassClonePlan plan = fill.plan;
+			final Object o = fill.o;
+			if (plan.infrastructure.length > 0) reportInfrastructure(o, plan);
+			for (int i = 0; i < plan.fields.length; i++) {
+				final IFieldAccessor accessor = plan.accessors[i];
+				final ClassClonePlan.Action action = plan.actions[i];
+				if (action == ClassClonePlan.Action.COPY_PRIMITIVE || action == ClassClonePlan.Action.SHARE) {
+					accessor.copy(o, fill.clone);
+					continue;
+				}
+				final Object fieldObject = accessor.get(o);
+				Object fieldObjectClone = action == ClassClonePlan.Action.APPLY_STRATEGY ? cloningStrategyFor(o, fieldObject, plan.fields[i]) : MUST_CLONE;
+				if (fieldObjectClone == MUST_CLONE) fieldObjectClone = resolve(fieldObject, queue, completing);
+				accessor.set(fill.clone, fieldObjectClone);
+				reportInfrastructure(plan.fields[i], fieldObject, fieldObjectClone);
+				if (dumpCloned != null && fieldObjectClone != fieldObject) {
+					dumpCloned.cloning(plan.fields[i], o.getClass());
+				}
+			}
+		}
+	}
+
+	// a clone restricted to the nodes of a CloneSpec and to its max depth
+	private final class ProjectedClone {
+		private final Map<Object, Object> clones;
+		private final int maxDepth;
+
+		ProjectedClone(final Map<Object, Object> clones, final int maxDepth) {
+			this.clones = clones;
+			this.maxDepth = maxDepth;
+		}
+
+		/**
+		 * @param node  what to clone of o, null to share o
+		 * @param depth the depth of o, the root being at depth 1
+		 */
+		@SuppressWarnings("unchecked")
+		<T> T project(final T o, final CloneSpec.Node node, final int depth) throws IllegalAccessException {
+			if (o == null) return null;
+			final Class<T> clz = (Class<T>) o.getClass();
+			final ClassHandler handler = classHandler(clz);
+			final Object notCloned = notCloned(o, handler);
+			if (notCloned != MUST_CLONE) return (T) notCloned;
+			final Object clonedPreviously = clones.get(o);
+			if (clonedPreviously != null) return (T) clonedPreviously;
+			if (node == null || depth > maxDepth) {
+				// shared along this path, so along any other one too
+				clones.put(o, o);
+				return o;
+			}
+			if (node.isFull() && maxDepth == Integer.MAX_VALUE) return cloneNew(o, clz, handler, clones);
+
+			if (handler.kind == ClassHandler.Kind.FAST_CLONE_SUBCLASS) {
+				return (T) cloneSubclass(o, handler, cloner(node.elements(), depth + 1), clones);
+			}
+			if (handler.kind == ClassHandler.Kind.FAST_CLONE) {
+				// an overridden fastClone() clones all of the elements, with the recursive deepCloner
+				final Object fastClone = fastCloneOverridden ? fastClone(o, clones) : handler.fastCloner.clone(o, cloner(node.elements(), depth + 1), clones);
+				if (fastClone != null) {
+					final Object previous = clones.putIfAbsent(o, fastClone);
+					return (T) (previous != null ? previous : fastClone);
+				}
+			}
+			if (dumpCloned != null) {
+				dumpCloned.startCloning(clz);
+			}
+			if (clz.isArray()) {
+				final Class<?> componentType = clz.getComponentType();
+				if (componentType.isPrimitive() || isImmutable(componentType)) return cloneArray(o, clones);
+				final Object[] src = (Object[]) o;
+				final Object[] newInstance = src.clone();
+				clones.put(o, newInstance);
+				final CloneSpec.Node elements = node.elements();
+				for (int i = 0; i < src.length; i++) {
+					newInstance[i] = project(src[i], elements, depth + 1);
+				}
+				return (T) newInstance;
+			}
+			final ClassClonePlan plan = handler.plan != null ? handler.plan : clonePlan(clz);
+			if (plan.flat) return cloneObject(o, clones, clz, plan);
+			final T newInstance = newInstance(clz);
+			clones.put(o, newInstance);
+			if (plan.infrastructure.length > 0) reportInfrastructure(o, plan);
+			final CloneSpec.Node[] children = node.isFull() ? null : node.fields(plan);
+			for (int i = 0; i < plan.fields.length; i++) {
+				final IFieldAccessor accessor = plan.accessors[i];
+				final ClassClonePlan.Action action = plan.actions[i];
+				if (action == ClassClonePlan.Action.COPY_PRIMITIVE || action == ClassClonePlan.Action.SHARE) {
+					accessor.copy(o, newInstance);
+					continue;
+				}
+				final Object fieldObject = accessor.get(o);
+				// fields to be shared (null node) go through project() too, which records that decision
+				Object fieldObjectClone = action == ClassClonePlan.Action.APPLY_STRATEGY ? cloningStrategyFor(o, fieldObject, plan.fields[i]) : MUST_CLONE;
+				if (fieldObjectClone == MUST_CLONE) fieldObjectClone = project(fieldObject, children == null ? node : children[i], depth + 1);
+				accessor.set(newInstance, fieldObjectClone);
+				reportInfrastructure(plan.fields[i], fieldObject, fieldObjectClone);
+				if (dumpCloned != null && fieldObjectClone != fieldObject) {
+					dumpCloned.cloning(plan.fields[i], clz);
+				}
+			}
+			return newInstance;
+		}
+
+		// clones the elements of an array, collection or map, as fast cloners ask
+		private IDeepCloner cloner(final CloneSpec.Node node, final int depth) {
+			return new IDeepCloner() {
+				public <T> T deepClone(final T o, final Map<Object, Object> clones) {
+					try {
+						return project(o, node, depth);
+					} catch (final IllegalAccessException e) {
+						// just rethrow unchecked
+						throw new IllegalStateException(e);
+					}
+				}
+			};
+		}
+	}
+
+	// an instance created by IterativeClone, waiting for its fields (plan != null) or elements to be cloned
+	private static final class Fill {
+		final Object o;
+		final Object clone;
+		final ClassClonePlan plan;
+		boolean done;
+
+		Fill(final Object o, final Object clone, final ClassClonePlan plan) {
+			this.o = o;
+			this.clone = clone;
+			this.plan = plan;
+		}
+	}
 }
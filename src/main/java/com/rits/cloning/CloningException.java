@@ -11,6 +11,11 @@ public class CloningException extends RuntimeException
 {
 	private static final long	serialVersionUID	= 3815175312001146867L;
 
+	public CloningException(final String message)
+	{
+		super(message);
+	}
+
 	public CloningException(final String message, final Throwable cause)
 	{
 		super(message, cause);
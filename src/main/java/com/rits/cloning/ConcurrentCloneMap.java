@@ -0,0 +1,269 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the clones table of a parallel deep clone: an identity map safe for concurrent use, striped over
+ * IdentityCloneMap's that are each guarded by their own lock. It also carries the settings of the
+ * parallel clone, so that fast cloners can split big collections into fork/join tasks via
+ * cloneAll().
+ *
+ * Two tasks may start cloning the same instance at the same time. The first to putIfAbsent() its
+ * clone wins and the other one must use the winning clone, as Cloner does.
+ *
+ * A clone registered before its fields or elements are cloned (see putIfAbsentFilling()) is visible to
+ * other tasks while it's being filled. A task meeting such a clone, which isn't being filled by the task
+ * itself (see isFilledElsewhere()), must fill it too before using it, i.e. before hashing it as a key.
+ * Both fill it with the same clones, so that the task never waits for another one.
+ */
+final class ConcurrentCloneMap extends AbstractMap<Object, Object> {
+	// elements cloned by the same task, at least
+	private static final int MIN_CHUNK = 256;
+
+	private final IdentityCloneMap[] stripes;
+	// per stripe, the instances whose clone is being filled. Guarded by the lock of the stripe
+	private final IdentityCloneMap[] filling;
+	// the instances whose clone is being filled by the current task, as filling is per task
+	private final ThreadLocal<IdentityCloneMap> filledByTask = new ThreadLocal<IdentityCloneMap>();
+	private final int shift;
+	private final ForkJoinPool pool;
+	private final int threshold;
+
+	/**
+	 * @param pool      runs the tasks cloning big collections and arrays
+	 * @param threshold collections and arrays with at least that many elements are cloned in parallel
+	 */
+	ConcurrentCloneMap(final ForkJoinPool pool, final int threshold) {
+		this.pool = pool;
+		this.threshold = threshold;
+		int bits = 2;
+		while ((1 << bits) < pool.getParallelism() * 4 && bits < 10) bits++;
+		stripes = new IdentityCloneMap[1 << bits];
+		filling = new IdentityCloneMap[1 << bits];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new IdentityCloneMap(0);
+			filling[i] = new IdentityCloneMap(0);
+		}
+		shift = 32 - bits;
+	}
+
+	/**
+	 * true if a collection of that size, cloned with that clones table, is to be cloned via cloneAll()
+	 */
+	static boolean isParallel(final Map<Object, Object> clones, final int size) {
+		return clones instanceof ConcurrentCloneMap && size >= ((ConcurrentCloneMap) clones).threshold;
+	}
+
+	/**
+	 * replaces each element with its deep clone, splitting the work into fork/join tasks. Only for
+	 * clones tables for which isParallel() is true.
+	 */
+	static void cloneAll(final Object[] elements, final IDeepCloner cloner, final Map<Object, Object> clones) {
+		final ConcurrentCloneMap map = (ConcurrentCloneMap) clones;
+		final int chunk = Math.max(MIN_CHUNK, elements.length / (map.pool.getParallelism() * 4));
+		final CloneElements task = new CloneElements(elements, 0, elements.length, chunk, cloner, map);
+		if (ForkJoinTask.inForkJoinPool()) {
+			// a big collection nested in another one
+			task.invoke();
+		} else {
+			map.pool.invoke(task);
+		}
+	}
+
+	private static final class CloneElements extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Object[] elements;
+		private final int from;
+		private final int to;
+		private final int chunk;
+		private final IDeepCloner cloner;
+		private final ConcurrentCloneMap clones;
+
+		CloneElements(final Object[] elements, final int from, final int to, final int chunk, final IDeepCloner cloner, final ConcurrentCloneMap clones) {
+			this.elements = elements;
+			this.from = from;
+			this.to = to;
+			this.chunk = chunk;
+			this.cloner = cloner;
+			this.clones = clones;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				// this thread may have stolen the task while filling clones of another task
+				final IdentityCloneMap outer = clones.filledByTask.get();
+				clones.filledByTask.set(null);
+				try {
+					for (int i = from; i < to; i++) {
+						elements[i] = cloner.deepClone(elements[i], clones);
+					}
+				} finally {
+					if (outer == null) clones.filledByTask.remove();
+					else clones.filledByTask.set(outer);
+				}
+			} else {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new CloneElements(elements, from, mid, chunk, cloner, clones), new CloneElements(elements, mid, to, chunk, cloner, clones));
+			}
+		}
+	}
+
+	private int stripeIndex(final Object key) {
+		return (System.identityHashCode(key) * 0x85EBCA6B) >>> shift;
+	}
+
+	private IdentityCloneMap stripe(final Object key) {
+		return stripes[stripeIndex(key)];
+	}
+
+	private IdentityCloneMap filledByTask() {
+		IdentityCloneMap filled = filledByTask.get();
+		if (filled == null) {
+			filled = new IdentityCloneMap(0);
+			filledByTask.set(filled);
+		}
+		return filled;
+	}
+
+	/**
+	 * as putIfAbsent(), but if value is registered it's marked as being filled by the current task
+	 * until filled() is called
+	 */
+	Object putIfAbsentFilling(final Object key, final Object value) {
+		final int i = stripeIndex(key);
+		final Object previous;
+		synchronized (stripes[i]) {
+			previous = stripes[i].putIfAbsent(key, value);
+			if (previous == null) filling[i].put(key, Boolean.TRUE);
+		}
+		if (previous == null) filledByTask().put(key, Boolean.TRUE);
+		return previous;
+	}
+
+	/**
+	 * the clone of key, registered by putIfAbsentFilling(), is filled
+	 */
+	void filled(final Object key) {
+		final int i = stripeIndex(key);
+		synchronized (stripes[i]) {
+			filling[i].remove(key);
+		}
+		filledByTask().remove(key);
+	}
+
+	/**
+	 * @return true if the clone of key is being filled by another task, in which case the current task
+	 * must fill it as well between helping() and helped()
+	 */
+	boolean isFilledElsewhere(final Object key) {
+		final IdentityCloneMap filled = filledByTask.get();
+		if (filled != null && filled.containsKey(key)) return false;
+		final int i = stripeIndex(key);
+		synchronized (stripes[i]) {
+			return filling[i].containsKey(key);
+		}
+	}
+
+	void helping(final Object key) {
+		filledByTask().put(key, Boolean.TRUE);
+	}
+
+	void helped(final Object key) {
+		filledByTask().remove(key);
+	}
+
+	@Override
+	public Object get(final Object key) {
+		final IdentityCloneMap stripe = stripe(key);
+		synchronized (stripe) {
+			return stripe.get(key);
+		}
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		final IdentityCloneMap stripe = stripe(key);
+		synchronized (stripe) {
+			return stripe.containsKey(key);
+		}
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		final IdentityCloneMap stripe = stripe(key);
+		synchronized (stripe) {
+			return stripe.put(key, value);
+		}
+	}
+
+	@Override
+	public Object putIfAbsent(final Object key, final Object value) {
+		final IdentityCloneMap stripe = stripe(key);
+		synchronized (stripe) {
+			return stripe.putIfAbsent(key, value);
+		}
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final IdentityCloneMap stripe = stripe(key);
+		synchronized (stripe) {
+			return stripe.remove(key);
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (final IdentityCloneMap stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (final IdentityCloneMap stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	/**
+	 * a snapshot of the entries
+	 */
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		final List<Entry<Object, Object>> entries = new ArrayList<Entry<Object, Object>>();
+		for (final IdentityCloneMap stripe : stripes) {
+			synchronized (stripe) {
+				entries.addAll(stripe.entrySet());
+			}
+		}
+		return new AbstractSet<Entry<Object, Object>>() {
+			@Override
+			public Iterator<Entry<Object, Object>> iterator() {
+				return entries.iterator();
+			}
+
+			@Override
+			public int size() {
+				return entries.size();
+			}
+		};
+	}
+}
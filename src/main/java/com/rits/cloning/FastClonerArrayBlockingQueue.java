@@ -0,0 +1,42 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * clones an ArrayBlockingQueue with the same capacity and fairness, from a snapshot of its elements
+ * taken while holding its lock. The clone has its own lock. The fairness is read from the lock of the
+ * queue if java.util.concurrent is open to the cloner, otherwise the clone is not fair.
+ */
+public class FastClonerArrayBlockingQueue implements IFastCloner
+{
+	private static final Field	LOCK	= FastClonerWrapper.field("java.util.concurrent.ArrayBlockingQueue", "lock");
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ArrayBlockingQueue q = (ArrayBlockingQueue) t;
+		final Object[] elements = q.toArray();
+		final int capacity = Math.max(q.size() + q.remainingCapacity(), elements.length);
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		return new ArrayBlockingQueue(capacity, isFair(q), Arrays.asList(elements));
+	}
+
+	private static boolean isFair(final ArrayBlockingQueue<?> q)
+	{
+		if (LOCK == null) return false;
+		try
+		{
+			return ((ReentrantLock) LOCK.get(q)).isFair();
+		} catch (final IllegalAccessException e)
+		{
+			return false;
+		}
+	}
+}
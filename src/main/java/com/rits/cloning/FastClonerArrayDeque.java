@@ -0,0 +1,29 @@
+package com.rits.cloning;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * clones an ArrayDeque. If no element is cloned, i.e. they are all immutable, the clone is an
+ * ArrayDeque.clone(), a copy of the array of the original. Otherwise it is built from the cloned
+ * elements.
+ */
+public class FastClonerArrayDeque implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ArrayDeque q = (ArrayDeque) t;
+		final Object[] elements = q.toArray();
+		boolean cloned = false;
+		for (int i = 0; i < elements.length; i++)
+		{
+			final Object o = elements[i];
+			elements[i] = cloner.deepClone(o, clones);
+			cloned |= elements[i] != o;
+		}
+		if (!cloned) return q.clone();
+		return new ArrayDeque(Arrays.asList(elements));
+	}
+}
@@ -1,6 +1,7 @@
 package com.rits.cloning;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -13,6 +14,12 @@ public class FastClonerArrayList implements IFastCloner
 	@SuppressWarnings({ "unchecked", "rawtypes" })
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
 		final ArrayList al = (ArrayList) t;
+		if (ConcurrentCloneMap.isParallel(clones, al.size()))
+		{
+			final Object[] elements = al.toArray();
+			ConcurrentCloneMap.cloneAll(elements, cloner, clones);
+			return new ArrayList(Arrays.asList(elements));
+		}
 		final ArrayList l = new ArrayList(al.size());
 		for (final Object o : al)
 		{
@@ -0,0 +1,68 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * clones the atomics of java.util.concurrent.atomic into new atomics holding the current value (deep
+ * cloned for AtomicReference's). A LongAdder or DoubleAdder is cloned into one holding its sum, without
+ * its contention cells.
+ */
+public class FastClonerAtomic implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		if (t instanceof AtomicLong) return new AtomicLong(((AtomicLong) t).get());
+		if (t instanceof AtomicInteger) return new AtomicInteger(((AtomicInteger) t).get());
+		if (t instanceof AtomicBoolean) return new AtomicBoolean(((AtomicBoolean) t).get());
+		if (t instanceof AtomicReference) return new AtomicReference(cloner.deepClone(((AtomicReference) t).get(), clones));
+		if (t instanceof LongAdder)
+		{
+			final LongAdder adder = new LongAdder();
+			adder.add(((LongAdder) t).sum());
+			return adder;
+		}
+		if (t instanceof DoubleAdder)
+		{
+			final DoubleAdder adder = new DoubleAdder();
+			adder.add(((DoubleAdder) t).sum());
+			return adder;
+		}
+		if (t instanceof AtomicIntegerArray)
+		{
+			final AtomicIntegerArray a = (AtomicIntegerArray) t;
+			final int[] values = new int[a.length()];
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = a.get(i);
+			}
+			return new AtomicIntegerArray(values);
+		}
+		if (t instanceof AtomicLongArray)
+		{
+			final AtomicLongArray a = (AtomicLongArray) t;
+			final long[] values = new long[a.length()];
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = a.get(i);
+			}
+			return new AtomicLongArray(values);
+		}
+		final AtomicReferenceArray a = (AtomicReferenceArray) t;
+		final Object[] values = new Object[a.length()];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = cloner.deepClone(a.get(i), clones);
+		}
+		return new AtomicReferenceArray(values);
+	}
+}
@@ -0,0 +1,15 @@
+package com.rits.cloning;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * clones a BitSet via BitSet.clone(), a copy of its words
+ */
+public class FastClonerBitSet implements IFastCloner
+{
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		return ((BitSet) t).clone();
+	}
+}
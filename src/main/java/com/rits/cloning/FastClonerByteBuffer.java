@@ -0,0 +1,41 @@
+package com.rits.cloning;
+
+import java.nio.ByteBuffer;
+import java.nio.InvalidMarkException;
+import java.util.Map;
+
+/**
+ * clones heap and direct ByteBuffer's into a buffer of the same kind (heap or direct, read-only or
+ * not) with the same capacity, position, limit, mark and byte order. The whole content is copied with a
+ * single bulk put(), so the clone of a slice has its own array or memory, starting at offset 0.
+ */
+public class FastClonerByteBuffer implements IFastCloner
+{
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ByteBuffer b = (ByteBuffer) t;
+		final ByteBuffer content = b.duplicate();
+		int mark = -1;
+		try
+		{
+			// the duplicate has the mark of the buffer
+			content.reset();
+			mark = content.position();
+		} catch (final InvalidMarkException e)
+		{
+			// no mark
+		}
+		content.clear();
+		ByteBuffer result = b.isDirect() ? ByteBuffer.allocateDirect(b.capacity()) : ByteBuffer.allocate(b.capacity());
+		result.put(content);
+		if (mark >= 0)
+		{
+			result.position(mark);
+			result.mark();
+		}
+		result.limit(b.limit());
+		result.position(b.position());
+		if (b.isReadOnly()) result = result.asReadOnlyBuffer();
+		return result.order(b.order());
+	}
+}
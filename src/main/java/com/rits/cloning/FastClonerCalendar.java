@@ -1,22 +1,68 @@
 package com.rits.cloning;
 
+import java.lang.reflect.Field;
 import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.Map;
-import java.util.TimeZone;
 
 /**
+ * clones Calendar's via Calendar.clone(), which copies the time, the computed fields and the settings
+ * (first day of week, leniency etc) of the calendar without recomputing anything. Calendar.clone() also
+ * clones the time zone, unless the calendar shares the default zone of the JDK. That copy is kept and
+ * registered as the clone of the zone, or replaced with the zone itself if the cloner shares time
+ * zones. The zone can only be replaced if java.util is open to the cloner.
+ *
  * @author kostantinos.kougios
  *
  * 21 May 2009
  */
 public class FastClonerCalendar implements IFastCloner
 {
+	private static final Field	ZONE		= FastClonerWrapper.field("java.util.Calendar", "zone");
+	private static final Field	SHARED_ZONE	= FastClonerWrapper.field("java.util.Calendar", "sharedZone");
+
+	private final Cloner		settings;
+
+	/**
+	 * a cloner that never shares time zones
+	 */
+	public FastClonerCalendar()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param settings the cloner whose isShareTimeZones() decides if time zones are shared, null if they never are
+	 */
+	public FastClonerCalendar(final Cloner settings)
+	{
+		this.settings = settings;
+	}
+
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
-		final GregorianCalendar gc = new GregorianCalendar();
-		Calendar c = (Calendar) t;
-		gc.setTimeInMillis(c.getTimeInMillis());
-		gc.setTimeZone((TimeZone) c.getTimeZone().clone());
-		return gc;
+		final Calendar c = (Calendar) t;
+		final Calendar result = (Calendar) c.clone();
+		if (ZONE != null && SHARED_ZONE != null)
+		{
+			try
+			{
+				if (!SHARED_ZONE.getBoolean(c))
+				{
+					final Object zone = ZONE.get(c);
+					if (settings != null && settings.isShareTimeZones())
+					{
+						ZONE.set(result, zone);
+					} else if (clones != null)
+					{
+						// the zone may have been cloned already, i.e. for another calendar
+						final Object previous = clones.putIfAbsent(zone, ZONE.get(result));
+						if (previous != null) ZONE.set(result, previous);
+					}
+				}
+			} catch (final IllegalAccessException e)
+			{
+				throw new CloningException("can't access the time zone of " + t.getClass(), e);
+			}
+		}
+		return result;
 	}
 }
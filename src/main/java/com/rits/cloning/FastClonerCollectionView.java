@@ -0,0 +1,24 @@
+package com.rits.cloning;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * materializes a collection view, i.e. Map.values(), into an ArrayList holding clones of the
+ * elements of the view only, in their iteration order
+ */
+public class FastClonerCollectionView implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Collection view = (Collection) t;
+		final ArrayList result = new ArrayList(view.size());
+		for (final Object o : view)
+		{
+			result.add(cloner.deepClone(o, clones));
+		}
+		return result;
+	}
+}
@@ -13,7 +13,8 @@ public class FastClonerConcurrentHashMap implements IFastCloner
 	@SuppressWarnings({ "unchecked", "rawtypes" })
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
 		final ConcurrentHashMap<Object, Object> m = (ConcurrentHashMap) t;
-		final ConcurrentHashMap result = new ConcurrentHashMap();
+		// presized, so that it never resizes while being filled
+		final ConcurrentHashMap result = new ConcurrentHashMap(m.size());
 		for (final Map.Entry e : m.entrySet())
 		{
             final Object key = cloner.deepClone(e.getKey(), clones);
@@ -0,0 +1,25 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * materializes a ConcurrentHashMap.KeySetView, i.e. a ConcurrentHashMap.newKeySet() or the keySet()
+ * of a map, into the key set of a new ConcurrentHashMap holding clones of the keys only. The clone
+ * has the same mapped value, so it supports add() if the original does.
+ */
+public class FastClonerConcurrentKeySetView implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ConcurrentHashMap.KeySetView view = (ConcurrentHashMap.KeySetView) t;
+		final Object mappedValue = view.getMappedValue();
+		final ConcurrentHashMap map = new ConcurrentHashMap(view.size());
+		for (final Object o : view)
+		{
+			map.put(cloner.deepClone(o, clones), mappedValue != null ? mappedValue : Boolean.TRUE);
+		}
+		return mappedValue != null ? map.keySet(mappedValue) : map.keySet();
+	}
+}
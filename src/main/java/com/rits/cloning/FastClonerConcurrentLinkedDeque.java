@@ -0,0 +1,23 @@
+package com.rits.cloning;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * clones a ConcurrentLinkedDeque from one toArray() of its elements, linking the nodes of the clone
+ * in one go
+ */
+public class FastClonerConcurrentLinkedDeque implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Object[] elements = ((ConcurrentLinkedDeque) t).toArray();
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		return new ConcurrentLinkedDeque(Arrays.asList(elements));
+	}
+}
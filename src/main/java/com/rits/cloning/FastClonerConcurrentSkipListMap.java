@@ -0,0 +1,29 @@
+package com.rits.cloning;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * clones the entries in their sorted order and builds the clone from them in linear time, without
+ * comparing keys. The clone shares the comparator of the original.
+ */
+public class FastClonerConcurrentSkipListMap implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ConcurrentSkipListMap<Object, Object> m = (ConcurrentSkipListMap) t;
+		// a snapshot, the map may change while being cloned
+		final Object[] entries = m.entrySet().toArray();
+		final Object[] keys = new Object[entries.length];
+		final Object[] values = new Object[entries.length];
+		for (int i = 0; i < entries.length; i++)
+		{
+			final Map.Entry e = (Map.Entry) entries[i];
+			keys[i] = cloner.deepClone(e.getKey(), clones);
+			values[i] = cloner.deepClone(e.getValue(), clones);
+		}
+		return new ConcurrentSkipListMap(SortedViews.map((Comparator) m.comparator(), keys, values));
+	}
+}
@@ -0,0 +1,36 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * starts from ConcurrentSkipListSet.clone(), which copies the skip list in linear time. If no element
+ * is cloned, i.e. they are all immutable, that's the clone. Otherwise the cloned elements are added
+ * one by one, as ConcurrentSkipListSet can't be built from sorted elements.
+ */
+public class FastClonerConcurrentSkipListSet implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final ConcurrentSkipListSet<Object> s = (ConcurrentSkipListSet) t;
+		final ConcurrentSkipListSet result = s.clone();
+		final Object[] elements = result.toArray();
+		boolean cloned = false;
+		for (int i = 0; i < elements.length; i++)
+		{
+			final Object o = elements[i];
+			elements[i] = cloner.deepClone(o, clones);
+			cloned |= elements[i] != o;
+		}
+		if (cloned)
+		{
+			result.clear();
+			for (final Object o : elements)
+			{
+				result.add(o);
+			}
+		}
+		return result;
+	}
+}
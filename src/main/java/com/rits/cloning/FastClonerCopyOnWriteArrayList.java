@@ -0,0 +1,22 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * clones a CopyOnWriteArrayList from a single snapshot of its array, so the clone is consistent even
+ * if the list is modified meanwhile, and builds the clone with a single array copy
+ */
+public class FastClonerCopyOnWriteArrayList implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Object[] elements = ((CopyOnWriteArrayList) t).toArray();
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		return new CopyOnWriteArrayList(elements);
+	}
+}
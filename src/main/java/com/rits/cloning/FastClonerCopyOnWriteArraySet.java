@@ -0,0 +1,31 @@
+package com.rits.cloning;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * clones a CopyOnWriteArraySet from a single snapshot of its array. If no element is cloned, i.e.
+ * they are all immutable, the clone copies the (immutable, so consistent) array of the original. Otherwise the cloned elements
+ * are added in one go, which compares them with each other as CopyOnWriteArraySet has no other way
+ * to be filled.
+ */
+public class FastClonerCopyOnWriteArraySet implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final CopyOnWriteArraySet s = (CopyOnWriteArraySet) t;
+		final Object[] elements = s.toArray();
+		boolean cloned = false;
+		for (int i = 0; i < elements.length; i++)
+		{
+			final Object o = elements[i];
+			elements[i] = cloner.deepClone(o, clones);
+			cloned |= elements[i] != o;
+		}
+		// copies the array of a CopyOnWriteArraySet, without comparing the elements
+		if (!cloned) return new CopyOnWriteArraySet(s);
+		return new CopyOnWriteArraySet(Arrays.asList(elements));
+	}
+}
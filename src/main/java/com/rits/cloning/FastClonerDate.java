@@ -0,0 +1,16 @@
+package com.rits.cloning;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * clones Date's and, as Date.clone() keeps the class, java.sql.Date, Time and Timestamp's (with their
+ * nanos). Date.clone() copies the time, and the calendar date only if the Date has one.
+ */
+public class FastClonerDate implements IFastCloner
+{
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		return ((Date) t).clone();
+	}
+}
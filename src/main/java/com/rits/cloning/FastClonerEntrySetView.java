@@ -0,0 +1,26 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * materializes a Map.entrySet() view into a LinkedHashSet of AbstractMap.SimpleEntry's holding
+ * clones of the keys and values. The clone is not backed by a map, so setValue() on its entries
+ * doesn't write through.
+ */
+public class FastClonerEntrySetView implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Set<Map.Entry> view = (Set) t;
+		final Set result = new LinkedHashSet(Math.max(16, (int) (view.size() / 0.75f) + 1));
+		for (final Map.Entry e : view)
+		{
+			result.add(new AbstractMap.SimpleEntry(cloner.deepClone(e.getKey(), clones), cloner.deepClone(e.getValue(), clones)));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,25 @@
+package com.rits.cloning;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * clones an EnumMap via EnumMap.clone(), a copy of its array of values, and then replaces the values
+ * that are cloned. The keys are enum constants and are never cloned.
+ */
+public class FastClonerEnumMap implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final EnumMap result = ((EnumMap) t).clone();
+		for (final Object o : result.entrySet())
+		{
+			final Map.Entry e = (Map.Entry) o;
+			final Object value = e.getValue();
+			final Object clone = cloner.deepClone(value, clones);
+			if (clone != value) e.setValue(clone);
+		}
+		return result;
+	}
+}
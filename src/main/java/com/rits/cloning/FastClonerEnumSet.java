@@ -0,0 +1,17 @@
+package com.rits.cloning;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * clones the EnumSet implementations via EnumSet.clone(), a copy of their bit vector. The elements are
+ * enum constants and are never cloned.
+ */
+public class FastClonerEnumSet implements IFastCloner
+{
+	@SuppressWarnings({ "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		return ((EnumSet) t).clone();
+	}
+}
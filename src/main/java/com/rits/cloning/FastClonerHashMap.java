@@ -4,6 +4,11 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * clones HashMap's and, as HashMap.clone() keeps the class, subclasses like LinkedHashMap. The clone
+ * starts as a HashMap.clone() of the original, so it has the same load factor (and access order for
+ * LinkedHashMap's) and is presized for all entries. If the keys are not cloned, i.e. they are
+ * immutable, the values are then replaced in place without rehashing any key.
+ *
  * @author kostantinos.kougios
  *
  * 21 May 2009
@@ -13,13 +18,45 @@ public class FastClonerHashMap implements IFastCloner
 	@SuppressWarnings({ "unchecked", "rawtypes" })
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
 		final HashMap<Object, Object> m = (HashMap) t;
-		final HashMap result = new HashMap();
-		for (final Map.Entry e : m.entrySet())
+		final HashMap result = (HashMap) m.clone();
+		if (ConcurrentCloneMap.isParallel(clones, m.size()))
 		{
-            final Object key = cloner.deepClone(e.getKey(), clones);
-            final Object value = cloner.deepClone(e.getValue(), clones);
-
-			result.put(key, value);
+			// keys at even, values at odd indexes
+			final Object[] elements = new Object[m.size() * 2];
+			int i = 0;
+			for (final Map.Entry e : m.entrySet())
+			{
+				elements[i++] = e.getKey();
+				elements[i++] = e.getValue();
+			}
+			ConcurrentCloneMap.cloneAll(elements, cloner, clones);
+			result.clear();
+			for (int j = 0; j < elements.length; j += 2)
+			{
+				result.put(elements[j], elements[j + 1]);
+			}
+			return result;
+		}
+		final Object[] keys = new Object[m.size()];
+		boolean keysCloned = false;
+		int i = 0;
+		for (final Object key : m.keySet())
+		{
+			final Object clonedKey = cloner.deepClone(key, clones);
+			keysCloned |= clonedKey != key;
+			keys[i++] = clonedKey;
+		}
+		if (!keysCloned)
+		{
+			result.replaceAll((key, value) -> cloner.deepClone(value, clones));
+			return result;
+		}
+		// clear() keeps the capacity
+		result.clear();
+		i = 0;
+		for (final Object value : m.values())
+		{
+			result.put(keys[i++], cloner.deepClone(value, clones));
 		}
 		return result;
 	}
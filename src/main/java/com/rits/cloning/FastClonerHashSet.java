@@ -4,6 +4,10 @@ import java.util.HashSet;
 import java.util.Map;
 
 /**
+ * clones HashSet's. The clone starts as a HashSet.clone() of the original, so it has the same load
+ * factor and is presized for all elements. If no element is cloned, i.e. they are all immutable,
+ * that's the clone, no element is rehashed.
+ *
  * @author kostantinos.kougios
  *
  * 21 May 2009
@@ -13,11 +17,24 @@ public class FastClonerHashSet implements IFastCloner
 	@SuppressWarnings({ "unchecked", "rawtypes" })
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
 		final HashSet al = (HashSet) t;
-		final HashSet l = new HashSet();
+		final HashSet l = (HashSet) al.clone();
+		final Object[] elements = new Object[al.size()];
+		boolean cloned = false;
+		int i = 0;
 		for (final Object o : al)
 		{
             final Object cloneInternal = cloner.deepClone(o, clones);
-            l.add(cloneInternal);
+            cloned |= cloneInternal != o;
+            elements[i++] = cloneInternal;
+		}
+		if (cloned)
+		{
+			// clear() keeps the capacity
+			l.clear();
+			for (final Object o : elements)
+			{
+				l.add(o);
+			}
 		}
 		return l;
 	}
@@ -0,0 +1,65 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * clones Hashtable's and, as Hashtable.clone() keeps the class, Properties. The clone starts as a
+ * Hashtable.clone() of the original, a consistent copy taken while holding its lock, and is then
+ * filled as FastClonerHashMap does. The defaults of Properties are deep cloned too.
+ */
+public class FastClonerHashtable implements IFastCloner
+{
+	private final Field	defaults;
+
+	/**
+	 * @param defaults the Properties.defaults field, null if only Hashtable's are cloned
+	 */
+	public FastClonerHashtable(final Field defaults)
+	{
+		this.defaults = defaults;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Hashtable result = (Hashtable) ((Hashtable) t).clone();
+		final Object[] keys = new Object[result.size()];
+		final Object[] values = new Object[keys.length];
+		boolean keysCloned = false;
+		int i = 0;
+		for (final Object o : result.entrySet())
+		{
+			final Map.Entry e = (Map.Entry) o;
+			final Object key = e.getKey();
+			keys[i] = cloner.deepClone(key, clones);
+			values[i++] = e.getValue();
+			keysCloned |= keys[i - 1] != key;
+		}
+		if (!keysCloned)
+		{
+			result.replaceAll((key, value) -> cloner.deepClone(value, clones));
+		} else
+		{
+			// clear() keeps the capacity
+			result.clear();
+			for (i = 0; i < keys.length; i++)
+			{
+				result.put(keys[i], cloner.deepClone(values[i], clones));
+			}
+		}
+		if (defaults != null && result instanceof Properties)
+		{
+			try
+			{
+				defaults.set(result, cloner.deepClone(defaults.get(t), clones));
+			} catch (final IllegalAccessException e)
+			{
+				throw new CloningException("can't access the defaults of " + t.getClass(), e);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,40 @@
+package com.rits.cloning;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * clones an IdentityHashMap. The clone starts as an IdentityHashMap.clone(), a copy of the table of
+ * the original, and the keys and values are cloned in a single pass over that table. If the keys are
+ * not cloned, i.e. they are immutable, that's the clone. Otherwise the clone is refilled with the cloned
+ * keys, which are hashed by their own identity.
+ */
+public class FastClonerIdentityHashMap implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final IdentityHashMap result = (IdentityHashMap) ((IdentityHashMap) t).clone();
+		final Object[] keys = new Object[result.size()];
+		final Object[] values = new Object[keys.length];
+		final int[] n = { 0 };
+		final boolean[] keysCloned = { false };
+		result.replaceAll((key, value) -> {
+			final Object clonedKey = cloner.deepClone(key, clones);
+			final Object clonedValue = cloner.deepClone(value, clones);
+			keysCloned[0] |= clonedKey != key;
+			keys[n[0]] = clonedKey;
+			values[n[0]++] = clonedValue;
+			return clonedValue;
+		});
+		if (keysCloned[0])
+		{
+			result.clear();
+			for (int i = 0; i < keys.length; i++)
+			{
+				result.put(keys[i], values[i]);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,76 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * clones the immutable collections of the JDK, i.e. List.of(), Set.of(), Map.of() and
+ * Collections.singletonList(). If none of the elements is cloned, i.e. they are all immutable, the
+ * collection is shared. Otherwise an immutable collection of the same kind is built from the cloned
+ * elements.
+ */
+public class FastClonerImmutableCollection implements IFastCloner
+{
+	public enum Kind
+	{
+		LIST, SET, MAP, SINGLETON_LIST, SINGLETON_SET, SINGLETON_MAP
+	}
+
+	private final Kind	kind;
+
+	public FastClonerImmutableCollection(final Kind kind)
+	{
+		this.kind = kind;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		if (kind == Kind.MAP || kind == Kind.SINGLETON_MAP)
+		{
+			final Map<Object, Object> m = (Map) t;
+			final Map.Entry[] entries = new Map.Entry[m.size()];
+			boolean cloned = false;
+			int i = 0;
+			for (final Map.Entry<Object, Object> e : m.entrySet())
+			{
+				final Object key = cloner.deepClone(e.getKey(), clones);
+				final Object value = cloner.deepClone(e.getValue(), clones);
+				cloned |= key != e.getKey() || value != e.getValue();
+				entries[i++] = new AbstractMap.SimpleImmutableEntry(key, value);
+			}
+			if (!cloned) return t;
+			if (kind == Kind.SINGLETON_MAP) return Collections.singletonMap(entries[0].getKey(), entries[0].getValue());
+			return Map.ofEntries(entries);
+		}
+
+		final Object[] elements = ((Collection) t).toArray();
+		boolean cloned = false;
+		boolean nulls = false;
+		for (int i = 0; i < elements.length; i++)
+		{
+			final Object o = elements[i];
+			elements[i] = cloner.deepClone(o, clones);
+			cloned |= elements[i] != o;
+			nulls |= o == null;
+		}
+		if (!cloned) return t;
+		switch (kind)
+		{
+			case LIST:
+				// Stream.toList() lists may contain nulls, List.of() ones can't
+				return nulls ? Arrays.stream(elements).toList() : List.of(elements);
+			case SET:
+				return Set.copyOf(Arrays.asList(elements));
+			case SINGLETON_LIST:
+				return Collections.singletonList(elements[0]);
+			default:
+				return Collections.singleton(elements[0]);
+		}
+	}
+}
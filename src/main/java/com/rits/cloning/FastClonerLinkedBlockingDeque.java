@@ -0,0 +1,27 @@
+package com.rits.cloning;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * clones a LinkedBlockingDeque with the same capacity, from a snapshot of its elements taken while
+ * holding its lock. The clone has its own lock.
+ */
+public class FastClonerLinkedBlockingDeque implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final LinkedBlockingDeque q = (LinkedBlockingDeque) t;
+		final Object[] elements = q.toArray();
+		final long capacity = Math.min((long) q.size() + q.remainingCapacity(), Integer.MAX_VALUE);
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		final LinkedBlockingDeque result = new LinkedBlockingDeque((int) Math.max(capacity, elements.length));
+		result.addAll(Arrays.asList(elements));
+		return result;
+	}
+}
@@ -0,0 +1,28 @@
+package com.rits.cloning;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * clones a LinkedBlockingQueue with the same capacity, from a snapshot of its elements taken while
+ * holding its locks. The clone has its own locks.
+ */
+public class FastClonerLinkedBlockingQueue implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final LinkedBlockingQueue q = (LinkedBlockingQueue) t;
+		final Object[] elements = q.toArray();
+		// size() and remainingCapacity() are read apart, so they may be off by the elements added meanwhile
+		final long capacity = Math.min((long) q.size() + q.remainingCapacity(), Integer.MAX_VALUE);
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		final LinkedBlockingQueue result = new LinkedBlockingQueue((int) Math.max(capacity, elements.length));
+		result.addAll(Arrays.asList(elements));
+		return result;
+	}
+}
@@ -0,0 +1,20 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * clones ReentrantLock's, ReentrantReadWriteLock's and StampedLock's into new, unlocked locks with the
+ * same fairness. Neither the owner nor the queued threads of a lock are cloned.
+ */
+public class FastClonerLock implements IFastCloner
+{
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		if (t instanceof ReentrantLock) return new ReentrantLock(((ReentrantLock) t).isFair());
+		if (t instanceof ReentrantReadWriteLock) return new ReentrantReadWriteLock(((ReentrantReadWriteLock) t).isFair());
+		return new StampedLock();
+	}
+}
@@ -0,0 +1,36 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * clones a PriorityQueue with the same comparator. If no element is cloned, i.e. they are all
+ * immutable, the clone is a copy of the heap of the original. Otherwise the cloned elements are added
+ * in the order of the heap, as returned by toArray(), which keeps the heap as it is: each element is
+ * compared once with its parent and never moved, so the clone is built in linear time without
+ * re-heapifying.
+ */
+public class FastClonerPriorityQueue implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final PriorityQueue q = (PriorityQueue) t;
+		final Object[] heap = q.toArray();
+		boolean cloned = false;
+		for (int i = 0; i < heap.length; i++)
+		{
+			final Object o = heap[i];
+			heap[i] = cloner.deepClone(o, clones);
+			cloned |= heap[i] != o;
+		}
+		// copies the heap of a PriorityQueue, but heapifies the elements of a subclass
+		if (!cloned && q.getClass() == PriorityQueue.class) return new PriorityQueue(q);
+		final PriorityQueue result = new PriorityQueue(Math.max(1, heap.length), q.comparator());
+		for (final Object o : heap)
+		{
+			result.add(o);
+		}
+		return result;
+	}
+}
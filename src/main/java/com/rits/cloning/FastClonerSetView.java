@@ -0,0 +1,37 @@
+package com.rits.cloning;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * materializes a set view, i.e. HashMap.keySet(), into a HashSet or, if the view has an iteration
+ * order, a LinkedHashSet holding clones of the elements of the view only. The clone is not backed
+ * by a map.
+ */
+public class FastClonerSetView implements IFastCloner
+{
+	private final boolean ordered;
+
+	/**
+	 * @param ordered true to keep the iteration order of the view
+	 */
+	public FastClonerSetView(final boolean ordered)
+	{
+		this.ordered = ordered;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Set view = (Set) t;
+		final int capacity = Math.max(16, (int) (view.size() / 0.75f) + 1);
+		final Set result = ordered ? new LinkedHashSet(capacity) : new HashSet(capacity);
+		for (final Object o : view)
+		{
+			result.add(cloner.deepClone(o, clones));
+		}
+		return result;
+	}
+}
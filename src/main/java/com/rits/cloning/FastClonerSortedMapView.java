@@ -0,0 +1,42 @@
+package com.rits.cloning;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * materializes a sorted map view, i.e. TreeMap.subMap(), into a TreeMap (or a ConcurrentSkipListMap)
+ * with the same comparator holding clones of the entries of the view only. The map is built in
+ * linear time.
+ */
+public class FastClonerSortedMapView implements IFastCloner
+{
+	private final boolean concurrent;
+
+	/**
+	 * @param concurrent true to materialize into a ConcurrentSkipListMap, false for a TreeMap
+	 */
+	public FastClonerSortedMapView(final boolean concurrent)
+	{
+		this.concurrent = concurrent;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final SortedMap<Object, Object> view = (SortedMap) t;
+		final Object[] entries = view.entrySet().toArray();
+		final Object[] keys = new Object[entries.length];
+		final Object[] values = new Object[entries.length];
+		for (int i = 0; i < entries.length; i++)
+		{
+			final Map.Entry e = (Map.Entry) entries[i];
+			keys[i] = cloner.deepClone(e.getKey(), clones);
+			values[i] = cloner.deepClone(e.getValue(), clones);
+		}
+		final SortedMap sorted = SortedViews.map((Comparator) view.comparator(), keys, values);
+		return concurrent ? new ConcurrentSkipListMap(sorted) : new TreeMap(sorted);
+	}
+}
@@ -0,0 +1,27 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * materializes a sorted set view, i.e. TreeMap.navigableKeySet() or the key set of a sub map, into a
+ * TreeSet with the same comparator holding clones of the elements of the view only. The TreeSet is
+ * built in linear time.
+ */
+public class FastClonerSortedSetView implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final SortedSet view = (SortedSet) t;
+		final Object[] elements = view.toArray();
+		for (int i = 0; i < elements.length; i++)
+		{
+			elements[i] = cloner.deepClone(elements[i], clones);
+		}
+		final TreeSet result = new TreeSet(view.comparator());
+		result.addAll(SortedViews.set(view.comparator(), elements));
+		return result;
+	}
+}
@@ -0,0 +1,15 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * clones TimeZone's via TimeZone.clone(), which shares their immutable transition tables
+ */
+public class FastClonerTimeZone implements IFastCloner
+{
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		return ((TimeZone) t).clone();
+	}
+}
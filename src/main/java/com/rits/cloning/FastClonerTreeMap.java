@@ -1,9 +1,13 @@
 package com.rits.cloning;
 
+import java.util.Comparator;
 import java.util.Map;
 import java.util.TreeMap;
 
 /**
+ * clones the entries in their sorted order and builds the clone from them in linear time, without
+ * comparing keys. The clone shares the comparator of the original.
+ *
  * @author kostantinos.kougios
  *
  * 21 May 2009
@@ -13,13 +17,14 @@ public class FastClonerTreeMap implements IFastCloner
 	@SuppressWarnings({ "unchecked", "rawtypes" })
     public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
 		final TreeMap<Object, Object> m = (TreeMap) t;
-		final TreeMap result = new TreeMap(m.comparator());
+		final Object[] keys = new Object[m.size()];
+		final Object[] values = new Object[keys.length];
+		int i = 0;
 		for (final Map.Entry e : m.entrySet())
 		{
-            final Object key = cloner.deepClone(e.getKey(), clones);
-            final Object value = cloner.deepClone(e.getValue(), clones);
-            result.put(key, value);
+            keys[i] = cloner.deepClone(e.getKey(), clones);
+            values[i++] = cloner.deepClone(e.getValue(), clones);
 		}
-		return result;
+		return new TreeMap(SortedViews.map((Comparator) m.comparator(), keys, values));
 	}
 }
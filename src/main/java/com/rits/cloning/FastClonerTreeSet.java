@@ -0,0 +1,28 @@
+package com.rits.cloning;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * clones the elements in their sorted order and builds the clone from them in linear time, without
+ * comparing elements. The clone shares the comparator of the original.
+ */
+public class FastClonerTreeSet implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final TreeSet<Object> s = (TreeSet) t;
+		final Object[] elements = new Object[s.size()];
+		int i = 0;
+		for (final Object o : s)
+		{
+			elements[i++] = cloner.deepClone(o, clones);
+		}
+		final TreeSet result = new TreeSet(s.comparator());
+		// addAll() of a SortedSet with the same comparator into an empty TreeSet is linear
+		result.addAll(SortedViews.set((Comparator) s.comparator(), elements));
+		return result;
+	}
+}
@@ -0,0 +1,26 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * clones Vector's and, as Vector.clone() keeps the class, Stack's. The clone starts as a
+ * Vector.clone() of the original, a consistent copy taken while holding its lock with the same
+ * capacity increment, and then only the elements that are cloned are replaced.
+ */
+public class FastClonerVector implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final Vector result = (Vector) ((Vector) t).clone();
+		final int size = result.size();
+		for (int i = 0; i < size; i++)
+		{
+			final Object o = result.get(i);
+			final Object clone = cloner.deepClone(o, clones);
+			if (clone != o) result.set(i, clone);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,34 @@
+package com.rits.cloning;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * clones a WeakHashMap into a presized one. The keys and values are copied to arrays first, which
+ * holds the keys strongly while they are cloned. As for the original, the keys of the clone are only
+ * weakly held by the clone.
+ */
+public class FastClonerWeakHashMap implements IFastCloner
+{
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		final WeakHashMap<Object, Object> m = (WeakHashMap) t;
+		final int size = m.size();
+		final Object[] keys = new Object[size];
+		final Object[] values = new Object[size];
+		int n = 0;
+		// size() expunged the collected keys, more may be collected before they are iterated
+		for (final Map.Entry<Object, Object> e : m.entrySet())
+		{
+			keys[n] = e.getKey();
+			values[n++] = e.getValue();
+		}
+		final WeakHashMap result = new WeakHashMap(Math.max(16, (int) (n / 0.75f) + 1));
+		for (int i = 0; i < n; i++)
+		{
+			result.put(cloner.deepClone(keys[i], clones), cloner.deepClone(values[i], clones));
+		}
+		return result;
+	}
+}
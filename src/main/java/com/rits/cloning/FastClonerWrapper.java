@@ -0,0 +1,76 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * clones a JDK wrapper collection, i.e. Collections.unmodifiableList() or synchronizedMap(), by
+ * deep cloning the wrapped collection and wrapping the clone again. If the wrapped collection isn't
+ * cloned, i.e. because it is immutable, the wrapper is shared.
+ *
+ * A synchronized wrapper locks on itself, so the clone of a synchronized view that locks on its
+ * backing collection gets its own lock.
+ */
+public class FastClonerWrapper implements IFastCloner
+{
+	/**
+	 * wraps the clone of the wrapped collection, given the values of the shared fields
+	 */
+	public interface Wrapping
+	{
+		Object wrap(Object delegate, Object[] shared);
+	}
+
+	private final Wrapping	wrapping;
+	private final Field		delegate;
+	private final Field[]	shared;
+
+	/**
+	 * @param wrapping wraps the cloned collection
+	 * @param delegate the field of the wrapper with the wrapped collection
+	 * @param shared   fields of the wrapper whose values are passed to the wrapping as they are, i.e.
+	 *                 the element type of a checked collection
+	 */
+	public FastClonerWrapper(final Wrapping wrapping, final Field delegate, final Field... shared)
+	{
+		this.wrapping = wrapping;
+		this.delegate = delegate;
+		this.shared = shared;
+	}
+
+	/**
+	 * @return the accessible field of a (private) JDK class, or null if there is no such field or it
+	 * can't be made accessible, i.e. because the package isn't open to the cloner
+	 */
+	public static Field field(final String className, final String fieldName)
+	{
+		try
+		{
+			final Field field = Class.forName(className).getDeclaredField(fieldName);
+			field.setAccessible(true);
+			return field;
+		} catch (final ClassNotFoundException | NoSuchFieldException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones)
+	{
+		try
+		{
+			final Object d = delegate.get(t);
+			final Object clone = cloner.deepClone(d, clones);
+			if (clone == d) return t;
+			final Object[] values = new Object[shared.length];
+			for (int i = 0; i < shared.length; i++)
+			{
+				values[i] = shared[i].get(t);
+			}
+			return wrapping.wrap(clone, values);
+		} catch (final IllegalAccessException e)
+		{
+			throw new CloningException("can't access the wrapped collection of " + t.getClass(), e);
+		}
+	}
+}
@@ -0,0 +1,270 @@
+package com.rits.cloning;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * generates IFieldCopier's as hidden classes, nestmates of the class they copy. The generated
+ * copy() loads and stores each field directly (getfield/putfield, so primitives are never boxed)
+ * and calls IDeepCloner.deepClone() only for the fields that need to be deep cloned.
+ *
+ * The generated code is straight-line (no branches), so no stack map frames are needed.
+ */
+final class FieldCopierGenerator {
+	// Java 17 class file
+	private static final int CLASS_VERSION = 61;
+	// keeps the copy() method well below the 64k code limit
+	private static final int MAX_FIELDS = 2000;
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+
+	private static final int ALOAD = 0x19;
+	private static final int ALOAD_0 = 0x2a;
+	private static final int ALOAD_1 = 0x2b;
+	private static final int ALOAD_2 = 0x2c;
+	private static final int ALOAD_3 = 0x2d;
+	private static final int ASTORE = 0x3a;
+	private static final int RETURN = 0xb1;
+	private static final int GETFIELD = 0xb4;
+	private static final int PUTFIELD = 0xb5;
+	private static final int INVOKESPECIAL = 0xb7;
+	private static final int INVOKEINTERFACE = 0xb9;
+	private static final int CHECKCAST = 0xc0;
+
+	// locals of copy()
+	private static final int SRC = 5;
+	private static final int DEST = 6;
+
+	private FieldCopierGenerator() {
+	}
+
+	/**
+	 * true if generated code in clz's nest can directly get/set field
+	 */
+	static boolean canAccess(final Class<?> clz, final Field field) {
+		if (Modifier.isFinal(field.getModifiers())) return false;
+		final Class<?> declaring = field.getDeclaringClass();
+		if (!isTypeAccessible(clz, field.getType())) return false;
+		if (declaring.getNestHost() == clz.getNestHost()) return true;
+		if (!isTypeAccessible(clz, declaring)) return false;
+		if (Modifier.isPublic(field.getModifiers())) return true;
+		return !Modifier.isPrivate(field.getModifiers()) && !Modifier.isProtected(field.getModifiers()) && samePackage(clz, declaring);
+	}
+
+	private static boolean isTypeAccessible(final Class<?> clz, Class<?> type) {
+		while (type.isArray()) type = type.getComponentType();
+		if (type.isPrimitive()) return true;
+		if (samePackage(clz, type)) return true;
+		if (!Modifier.isPublic(type.getModifiers())) return false;
+		final Module module = type.getModule();
+		return clz.getModule().canRead(module) && module.isExported(type.getPackageName(), clz.getModule());
+	}
+
+	private static boolean samePackage(final Class<?> a, final Class<?> b) {
+		return a.getClassLoader() == b.getClassLoader() && a.getPackageName().equals(b.getPackageName());
+	}
+
+	/**
+	 * generates a copier for the given fields of clz.
+	 *
+	 * @param clz    the class whose instances will be copied
+	 * @param fields fields of clz, all of them accessible as per canAccess()
+	 * @param clone  for each field, true if its value must be deep cloned, false to copy it as is
+	 * @return the copier or null if it can't be generated for clz
+	 */
+	static IFieldCopier generate(final Class<?> clz, final List<Field> fields, final List<Boolean> clone) {
+		if (fields.isEmpty() || fields.size() > MAX_FIELDS || clz.isHidden()) return null;
+		try {
+			final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clz, MethodHandles.lookup());
+			final byte[] bytes = classBytes(clz, fields, clone);
+			final MethodHandles.Lookup copierLookup = lookup.defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+			return (IFieldCopier) copierLookup.findConstructor(copierLookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch (final Throwable e) {
+			// i.e. the package is not open to us or the class loader of clz can't see IFieldCopier. Reflection will do.
+			return null;
+		}
+	}
+
+	private static byte[] classBytes(final Class<?> clz, final List<Field> fields, final List<Boolean> clone) throws IOException {
+		final ConstantPool cp = new ConstantPool();
+		final String className = internalName(clz) + "$$FieldCopier";
+		final int thisClass = cp.classRef(className);
+		final int superClass = cp.classRef("java/lang/Object");
+		final int copierInterface = cp.classRef(internalName(IFieldCopier.class));
+		final int objectInit = cp.memberRef(10, "java/lang/Object", "<init>", "()V");
+		final int deepClone = cp.memberRef(11, internalName(IDeepCloner.class), "deepClone", "(Ljava/lang/Object;Ljava/util/Map;)Ljava/lang/Object;");
+		final int clzRef = cp.classRef(internalName(clz));
+		final int code = cp.utf8("Code");
+
+		final ByteArrayOutputStream initBytes = new ByteArrayOutputStream();
+		final DataOutputStream init = new DataOutputStream(initBytes);
+		init.writeByte(ALOAD_0);
+		init.writeByte(INVOKESPECIAL);
+		init.writeShort(objectInit);
+		init.writeByte(RETURN);
+
+		final ByteArrayOutputStream copyBytes = new ByteArrayOutputStream();
+		final DataOutputStream copy = new DataOutputStream(copyBytes);
+		copy.writeByte(ALOAD_1);
+		copy.writeByte(CHECKCAST);
+		copy.writeShort(clzRef);
+		copy.writeByte(ASTORE);
+		copy.writeByte(SRC);
+		copy.writeByte(ALOAD_2);
+		copy.writeByte(CHECKCAST);
+		copy.writeShort(clzRef);
+		copy.writeByte(ASTORE);
+		copy.writeByte(DEST);
+		for (int i = 0; i < fields.size(); i++) {
+			final Field field = fields.get(i);
+			final int fieldRef = cp.memberRef(9, internalName(field.getDeclaringClass()), field.getName(), descriptor(field.getType()));
+			copy.writeByte(ALOAD);
+			copy.writeByte(DEST);
+			if (clone.get(i)) {
+				// dest.f = (T) cloner.deepClone(src.f, clones)
+				copy.writeByte(ALOAD_3);
+				copy.writeByte(ALOAD);
+				copy.writeByte(SRC);
+				copy.writeByte(GETFIELD);
+				copy.writeShort(fieldRef);
+				copy.writeByte(ALOAD);
+				copy.writeByte(4);
+				copy.writeByte(INVOKEINTERFACE);
+				copy.writeShort(deepClone);
+				copy.writeByte(3);
+				copy.writeByte(0);
+				if (field.getType() != Object.class) {
+					copy.writeByte(CHECKCAST);
+					copy.writeShort(cp.classRef(internalName(field.getType())));
+				}
+			} else {
+				// dest.f = src.f
+				copy.writeByte(ALOAD);
+				copy.writeByte(SRC);
+				copy.writeByte(GETFIELD);
+				copy.writeShort(fieldRef);
+			}
+			copy.writeByte(PUTFIELD);
+			copy.writeShort(fieldRef);
+		}
+		copy.writeByte(RETURN);
+
+		final int initName = cp.utf8("<init>");
+		final int initDesc = cp.utf8("()V");
+		final int copyName = cp.utf8("copy");
+		final int copyDesc = cp.utf8("(Ljava/lang/Object;Ljava/lang/Object;" + descriptor(IDeepCloner.class) + "Ljava/util/Map;)V");
+
+		final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(classBytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(CLASS_VERSION);
+		cp.writeTo(out);
+		out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+		out.writeShort(thisClass);
+		out.writeShort(superClass);
+		out.writeShort(1);
+		out.writeShort(copierInterface);
+		out.writeShort(0); // fields
+		out.writeShort(2); // methods
+		writeMethod(out, initName, initDesc, code, 1, 1, initBytes.toByteArray());
+		writeMethod(out, copyName, copyDesc, code, 4, 7, copyBytes.toByteArray());
+		out.writeShort(0); // attributes
+		return classBytes.toByteArray();
+	}
+
+	private static void writeMethod(final DataOutputStream out, final int name, final int descriptor, final int code, final int maxStack, final int maxLocals, final byte[] bytecode) throws IOException {
+		out.writeShort(ACC_PUBLIC);
+		out.writeShort(name);
+		out.writeShort(descriptor);
+		out.writeShort(1);
+		out.writeShort(code);
+		out.writeInt(12 + bytecode.length);
+		out.writeShort(maxStack);
+		out.writeShort(maxLocals);
+		out.writeInt(bytecode.length);
+		out.write(bytecode);
+		out.writeShort(0); // exception table
+		out.writeShort(0); // attributes
+	}
+
+	private static String internalName(final Class<?> c) {
+		if (c.isArray()) return c.descriptorString();
+		return c.getName().replace('.', '/');
+	}
+
+	private static String descriptor(final Class<?> c) {
+		return c.descriptorString();
+	}
+
+	private static final class ConstantPool {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream out = new DataOutputStream(bytes);
+		private final Map<String, Integer> entries = new HashMap<String, Integer>();
+		private int count = 1;
+
+		int utf8(final String s) throws IOException {
+			final Integer existing = entries.get("U" + s);
+			if (existing != null) return existing;
+			out.writeByte(1);
+			out.writeUTF(s);
+			return add("U" + s);
+		}
+
+		int classRef(final String internalName) throws IOException {
+			final Integer existing = entries.get("C" + internalName);
+			if (existing != null) return existing;
+			final int name = utf8(internalName);
+			out.writeByte(7);
+			out.writeShort(name);
+			return add("C" + internalName);
+		}
+
+		/**
+		 * @param tag 9 for a field, 10 for a method, 11 for an interface method
+		 */
+		int memberRef(final int tag, final String owner, final String name, final String descriptor) throws IOException {
+			final String key = tag + owner + "." + name + ":" + descriptor;
+			final Integer existing = entries.get(key);
+			if (existing != null) return existing;
+			final int ownerRef = classRef(owner);
+			final int nameRef = utf8(name);
+			final int descriptorRef = utf8(descriptor);
+			final Integer nameAndTypeKey = entries.get("N" + name + ":" + descriptor);
+			final int nameAndType;
+			if (nameAndTypeKey != null) {
+				nameAndType = nameAndTypeKey;
+			} else {
+				out.writeByte(12);
+				out.writeShort(nameRef);
+				out.writeShort(descriptorRef);
+				nameAndType = add("N" + name + ":" + descriptor);
+			}
+			out.writeByte(tag);
+			out.writeShort(ownerRef);
+			out.writeShort(nameAndType);
+			return add(key);
+		}
+
+		private int add(final String key) {
+			final int index = count++;
+			entries.put(key, index);
+			return index;
+		}
+
+		void writeTo(final DataOutputStream o) throws IOException {
+			o.writeShort(count);
+			o.write(bytes.toByteArray());
+		}
+	}
+}
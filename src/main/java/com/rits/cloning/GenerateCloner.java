@@ -0,0 +1,28 @@
+package com.rits.cloning;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * asks com.rits.cloning.processor.GenerateClonerProcessor to generate, at compile time, a fast cloner
+ * for the annotated class. The generated cloner accesses the fields directly, without reflection,
+ * and every Cloner registers it when created.
+ *
+ * The processor must be enabled for the compilation, i.e. with javac -processor
+ * com.rits.cloning.processor.GenerateClonerProcessor or via the annotationProcessors of the maven compiler
+ * plugin.
+ *
+ * The annotated class must be a record or a class with a non private no-args constructor whose
+ * instance fields (including inherited ones) are neither private nor final. A record must not be able to
+ * reach itself through a mutable object, as its clone can only be registered once its components are
+ * cloned. Cloner settings that apply per field, like setNullTransient(), don't apply to generated
+ * cloners.
+ */
+@Target(TYPE)
+@Retention(CLASS)
+public @interface GenerateCloner
+{
+}
@@ -0,0 +1,15 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+
+/**
+ * creates the accessors the cloner uses to read and write the fields of cloned objects.
+ * Accessors are created once per field, when the clone plan of a class is built.
+ *
+ * @see ReflectionFieldAccessStrategy
+ * @see VarHandleFieldAccessStrategy
+ */
+public interface IFieldAccessStrategy
+{
+	IFieldAccessor accessorFor(final Field field);
+}
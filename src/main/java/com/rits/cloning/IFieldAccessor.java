@@ -0,0 +1,17 @@
+package com.rits.cloning;
+
+/**
+ * reads and writes a single field
+ */
+public interface IFieldAccessor
+{
+	Object get(final Object o) throws IllegalAccessException;
+
+	void set(final Object o, final Object value) throws IllegalAccessException;
+
+	/**
+	 * copies the value of the field from src to dest, without boxing primitive values where the
+	 * implementation allows it
+	 */
+	void copy(final Object src, final Object dest) throws IllegalAccessException;
+}
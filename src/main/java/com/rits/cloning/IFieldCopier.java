@@ -0,0 +1,18 @@
+package com.rits.cloning;
+
+import java.util.Map;
+
+/**
+ * copies the fields of an instance into a new instance of the same class, deep cloning them
+ * where needed. Implementations are generated at runtime, one per class, see
+ * Cloner.setGeneratedCloners()
+ */
+public interface IFieldCopier {
+	/**
+	 * @param src    the object being cloned
+	 * @param dest   the new (empty) instance, same class as src
+	 * @param cloner used to deep clone field values
+	 * @param clones the clones map of the current deep clone
+	 */
+	void copy(Object src, Object dest, IDeepCloner cloner, Map<Object, Object> clones);
+}
@@ -0,0 +1,12 @@
+package com.rits.cloning;
+
+/**
+ * a fast cloner generated for a @GenerateCloner class. Generated cloners are listed in
+ * META-INF/services/com.rits.cloning.IGeneratedFastCloner and registered by every Cloner.
+ */
+public interface IGeneratedFastCloner extends IFastCloner {
+	/**
+	 * @return the class cloned by this cloner
+	 */
+	public Class<?> getClonedClass();
+}
@@ -0,0 +1,262 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * the clones table of a deep clone: an identity map using open addressing (linear probing)
+ * over parallel key and value arrays. Unlike IdentityHashMap it can be cleared and reused
+ * between deep clones, keeping its capacity.
+ *
+ * Not thread safe.
+ */
+final class IdentityCloneMap extends AbstractMap<Object, Object> {
+	private static final int MIN_CAPACITY = 32;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final Object NULL_KEY = new Object();
+
+	private Object[] keys;
+	private Object[] values;
+	private int size;
+	private int threshold;
+	// set while the map is used by a deep clone, so that a nested deep clone on the same thread gets its own map
+	boolean inUse;
+
+	IdentityCloneMap(final int expectedSize) {
+		allocate(capacityFor(expectedSize));
+	}
+
+	private static int capacityFor(final int expectedSize) {
+		// keep the load factor at 2/3 at most
+		final long min = (long) expectedSize * 3 / 2 + 1;
+		int capacity = MIN_CAPACITY;
+		while (capacity < min && capacity < MAX_CAPACITY) capacity <<= 1;
+		return capacity;
+	}
+
+	private void allocate(final int capacity) {
+		keys = new Object[capacity];
+		values = new Object[capacity];
+		threshold = capacity / 3 * 2;
+	}
+
+	int capacity() {
+		return keys.length;
+	}
+
+	/**
+	 * grows the table so that expectedSize entries fit without resizing
+	 */
+	void ensureCapacity(final int expectedSize) {
+		final int capacity = capacityFor(expectedSize);
+		if (capacity > keys.length) {
+			if (size == 0) allocate(capacity);
+			else resize(capacity);
+		}
+	}
+
+	private static int index(final Object key, final int mask) {
+		final int h = System.identityHashCode(key) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static Object maskNull(final Object key) {
+		return key == null ? NULL_KEY : key;
+	}
+
+	private static Object unmaskNull(final Object key) {
+		return key == NULL_KEY ? null : key;
+	}
+
+	@Override
+	public Object get(final Object key) {
+		final Object k = maskNull(key);
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		int i = index(k, mask);
+		Object item;
+		while ((item = ks[i]) != null) {
+			if (item == k) return values[i];
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		final Object k = maskNull(key);
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		int i = index(k, mask);
+		Object item;
+		while ((item = ks[i]) != null) {
+			if (item == k) return true;
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		final Object k = maskNull(key);
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		int i = index(k, mask);
+		Object item;
+		while ((item = ks[i]) != null) {
+			if (item == k) {
+				final Object old = values[i];
+				values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		ks[i] = k;
+		values[i] = value;
+		if (++size > threshold) resize(keys.length << 1);
+		return null;
+	}
+
+	@Override
+	public Object putIfAbsent(final Object key, final Object value) {
+		final Object k = maskNull(key);
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		int i = index(k, mask);
+		Object item;
+		while ((item = ks[i]) != null) {
+			if (item == k) {
+				final Object old = values[i];
+				if (old == null) values[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		ks[i] = k;
+		values[i] = value;
+		if (++size > threshold) resize(keys.length << 1);
+		return null;
+	}
+
+	@Override
+	public Object remove(final Object key) {
+		final Object k = maskNull(key);
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		int i = index(k, mask);
+		Object item;
+		while ((item = ks[i]) != null) {
+			if (item == k) {
+				final Object old = values[i];
+				deleteSlot(i);
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	// backward shift deletion, keeps every probe sequence unbroken without tombstones
+	private void deleteSlot(int d) {
+		final Object[] ks = keys;
+		final int mask = ks.length - 1;
+		ks[d] = null;
+		values[d] = null;
+		size--;
+		int i = (d + 1) & mask;
+		Object item;
+		while ((item = ks[i]) != null) {
+			final int r = index(item, mask);
+			// move item to d if its home slot r is not cyclically in (d, i]
+			if ((i > d && (r <= d || r > i)) || (i < d && r <= d && r > i)) {
+				ks[d] = item;
+				values[d] = values[i];
+				ks[i] = null;
+				values[i] = null;
+				d = i;
+			}
+			i = (i + 1) & mask;
+		}
+	}
+
+	private void resize(final int newCapacity) {
+		if (newCapacity > MAX_CAPACITY) throw new IllegalStateException("clones table can't grow beyond " + MAX_CAPACITY);
+		final Object[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(newCapacity);
+		final int mask = newCapacity - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			final Object k = oldKeys[j];
+			if (k != null) {
+				int i = index(k, mask);
+				while (keys[i] != null) i = (i + 1) & mask;
+				keys[i] = k;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * removes all entries, keeping the capacity
+	 */
+	@Override
+	public void clear() {
+		if (size > 0) {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			size = 0;
+		}
+	}
+
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		return new AbstractSet<Entry<Object, Object>>() {
+			@Override
+			public Iterator<Entry<Object, Object>> iterator() {
+				return new Iterator<Entry<Object, Object>>() {
+					private int next = advance(0);
+					private int last = -1;
+
+					private int advance(int i) {
+						while (i < keys.length && keys[i] == null) i++;
+						return i;
+					}
+
+					public boolean hasNext() {
+						return next < keys.length;
+					}
+
+					public Entry<Object, Object> next() {
+						if (!hasNext()) throw new NoSuchElementException();
+						last = next;
+						next = advance(next + 1);
+						return new SimpleImmutableEntry<Object, Object>(unmaskNull(keys[last]), values[last]);
+					}
+
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+}
@@ -0,0 +1,46 @@
+package com.rits.cloning;
+
+import java.lang.reflect.Field;
+
+/**
+ * accesses fields via java.lang.reflect.Field. This is the default.
+ */
+public class ReflectionFieldAccessStrategy implements IFieldAccessStrategy
+{
+	public IFieldAccessor accessorFor(final Field field)
+	{
+		return new ReflectionFieldAccessor(field);
+	}
+
+	private static ReflectionFieldAccessStrategy	instance	= new ReflectionFieldAccessStrategy();
+
+	public static ReflectionFieldAccessStrategy getInstance()
+	{
+		return instance;
+	}
+
+	static class ReflectionFieldAccessor implements IFieldAccessor
+	{
+		private final Field	field;
+
+		ReflectionFieldAccessor(final Field field)
+		{
+			this.field = field;
+		}
+
+		public Object get(final Object o) throws IllegalAccessException
+		{
+			return field.get(o);
+		}
+
+		public void set(final Object o, final Object value) throws IllegalAccessException
+		{
+			field.set(o, value);
+		}
+
+		public void copy(final Object src, final Object dest) throws IllegalAccessException
+		{
+			field.set(dest, field.get(src));
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * read only SortedMap/SortedSet views over arrays already in sorted order. The TreeMap,
+ * TreeSet and ConcurrentSkipListMap constructors (and addAll() into an empty TreeSet) build their
+ * tree in linear time from a sorted collection with the same comparator, without comparing
+ * elements. These views only support what those need: comparator(), size() and iteration.
+ */
+final class SortedViews {
+	private SortedViews() {
+	}
+
+	static SortedMap<Object, Object> map(final Comparator<Object> comparator, final Object[] keys, final Object[] values) {
+		return new SortedArrayMap(comparator, keys, values);
+	}
+
+	static SortedSet<Object> set(final Comparator<Object> comparator, final Object[] elements) {
+		return new SortedArraySet(comparator, elements);
+	}
+
+	private static final class SortedArrayMap extends AbstractMap<Object, Object> implements SortedMap<Object, Object> {
+		private final Comparator<Object> comparator;
+		private final Object[] keys;
+		private final Object[] values;
+
+		SortedArrayMap(final Comparator<Object> comparator, final Object[] keys, final Object[] values) {
+			this.comparator = comparator;
+			this.keys = keys;
+			this.values = values;
+		}
+
+		public Comparator<Object> comparator() {
+			return comparator;
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public Set<Entry<Object, Object>> entrySet() {
+			return new AbstractSet<Entry<Object, Object>>() {
+				@Override
+				public Iterator<Entry<Object, Object>> iterator() {
+					return new Iterator<Entry<Object, Object>>() {
+						private int i;
+
+						public boolean hasNext() {
+							return i < keys.length;
+						}
+
+						public Entry<Object, Object> next() {
+							if (i >= keys.length) throw new NoSuchElementException();
+							final Entry<Object, Object> e = new SimpleImmutableEntry<Object, Object>(keys[i], values[i]);
+							i++;
+							return e;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return keys.length;
+				}
+			};
+		}
+
+		public SortedMap<Object, Object> subMap(final Object fromKey, final Object toKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		public SortedMap<Object, Object> headMap(final Object toKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		public SortedMap<Object, Object> tailMap(final Object fromKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Object firstKey() {
+			if (keys.length == 0) throw new NoSuchElementException();
+			return keys[0];
+		}
+
+		public Object lastKey() {
+			if (keys.length == 0) throw new NoSuchElementException();
+			return keys[keys.length - 1];
+		}
+	}
+
+	private static final class SortedArraySet extends AbstractSet<Object> implements SortedSet<Object> {
+		private final Comparator<Object> comparator;
+		private final Object[] elements;
+
+		SortedArraySet(final Comparator<Object> comparator, final Object[] elements) {
+			this.comparator = comparator;
+			this.elements = elements;
+		}
+
+		public Comparator<Object> comparator() {
+			return comparator;
+		}
+
+		@Override
+		public int size() {
+			return elements.length;
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return new Iterator<Object>() {
+				private int i;
+
+				public boolean hasNext() {
+					return i < elements.length;
+				}
+
+				public Object next() {
+					if (i >= elements.length) throw new NoSuchElementException();
+					return elements[i++];
+				}
+			};
+		}
+
+		@Override
+		public Object[] toArray() {
+			return elements.clone();
+		}
+
+		public SortedSet<Object> subSet(final Object fromElement, final Object toElement) {
+			throw new UnsupportedOperationException();
+		}
+
+		public SortedSet<Object> headSet(final Object toElement) {
+			throw new UnsupportedOperationException();
+		}
+
+		public SortedSet<Object> tailSet(final Object fromElement) {
+			throw new UnsupportedOperationException();
+		}
+
+		public Object first() {
+			if (elements.length == 0) throw new NoSuchElementException();
+			return elements[0];
+		}
+
+		public Object last() {
+			if (elements.length == 0) throw new NoSuchElementException();
+			return elements[elements.length - 1];
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.rits.cloning;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * the clones table used by Cloner.deepCloneTree(): it doesn't remember cloned instances, so every
+ * reference is cloned anew. If created with verify=true, it throws a CloningException as soon as an
+ * instance is cloned twice, which means the graph was not a tree.
+ *
+ * Whatever the traversal, it throws a CloningException once more than maxObjects clones are
+ * registered, as a cycle would otherwise be cloned forever.
+ */
+final class TreeCloneMap extends AbstractMap<Object, Object> {
+	private final Map<Object, Object> seen;
+	private final int maxObjects;
+	private int objects;
+
+	TreeCloneMap(final boolean verify, final int maxObjects) {
+		seen = verify ? new IdentityHashMap<Object, Object>() : null;
+		this.maxObjects = maxObjects;
+	}
+
+	@Override
+	public Object get(final Object key) {
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return false;
+	}
+
+	@Override
+	public Object put(final Object key, final Object value) {
+		// a fast cloner may register its clone before the cloner does
+		final Object previous = seen != null ? seen.put(key, value) : null;
+		if (previous != null && previous != value) {
+			throw new CloningException("not a tree, " + key.getClass() + " instance is referenced more than once", null);
+		}
+		if (previous == null && ++objects > maxObjects) {
+			throw new CloningException("more than " + maxObjects + " objects cloned, the graph has a cycle or is bigger than maxTreeObjects", null);
+		}
+		return null;
+	}
+
+	@Override
+	public Set<Entry<Object, Object>> entrySet() {
+		return Collections.emptySet();
+	}
+}
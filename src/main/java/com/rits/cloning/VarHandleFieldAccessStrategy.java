@@ -0,0 +1,74 @@
+package com.rits.cloning;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * accesses fields via VarHandle's. Primitive fields are copied through typed accessors, so
+ * copying i.e. an int or a double field doesn't box its value.
+ *
+ * final fields, and fields of classes in packages that are not open to the cloner, are accessed
+ * via reflection.
+ */
+public class VarHandleFieldAccessStrategy implements IFieldAccessStrategy
+{
+	public IFieldAccessor accessorFor(final Field field)
+	{
+		if (!Modifier.isFinal(field.getModifiers()))
+		{
+			try
+			{
+				final MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+				return new VarHandleFieldAccessor(field.getType(), lookup.unreflectVarHandle(field));
+			} catch (final IllegalAccessException e)
+			{
+				// fall back to reflection
+			}
+		}
+		return ReflectionFieldAccessStrategy.getInstance().accessorFor(field);
+	}
+
+	private static VarHandleFieldAccessStrategy	instance	= new VarHandleFieldAccessStrategy();
+
+	public static VarHandleFieldAccessStrategy getInstance()
+	{
+		return instance;
+	}
+
+	static class VarHandleFieldAccessor implements IFieldAccessor
+	{
+		private final Class<?>	type;
+		private final VarHandle	handle;
+
+		VarHandleFieldAccessor(final Class<?> type, final VarHandle handle)
+		{
+			this.type = type;
+			this.handle = handle;
+		}
+
+		public Object get(final Object o)
+		{
+			return handle.get(o);
+		}
+
+		public void set(final Object o, final Object value)
+		{
+			handle.set(o, value);
+		}
+
+		public void copy(final Object src, final Object dest)
+		{
+			if (!type.isPrimitive()) handle.set(dest, (Object) handle.get(src));
+			else if (type == int.class) handle.set(dest, (int) handle.get(src));
+			else if (type == long.class) handle.set(dest, (long) handle.get(src));
+			else if (type == double.class) handle.set(dest, (double) handle.get(src));
+			else if (type == boolean.class) handle.set(dest, (boolean) handle.get(src));
+			else if (type == float.class) handle.set(dest, (float) handle.get(src));
+			else if (type == byte.class) handle.set(dest, (byte) handle.get(src));
+			else if (type == char.class) handle.set(dest, (char) handle.get(src));
+			else handle.set(dest, (short) handle.get(src));
+		}
+	}
+}
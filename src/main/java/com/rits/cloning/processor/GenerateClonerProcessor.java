@@ -0,0 +1,270 @@
+package com.rits.cloning.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * generates a com.rits.cloning.IGeneratedFastCloner for every class annotated with
+ * com.rits.cloning.GenerateCloner, and lists the generated cloners in
+ * META-INF/services/com.rits.cloning.IGeneratedFastCloner so that Cloner finds them.
+ *
+ * For a class Outer.Inner of package p, the cloner is p.FastClonerOuter_Inner.
+ */
+@SupportedAnnotationTypes(GenerateClonerProcessor.ANNOTATION)
+public class GenerateClonerProcessor extends AbstractProcessor {
+	static final String ANNOTATION = "com.rits.cloning.GenerateCloner";
+	private static final String SERVICE = "META-INF/services/com.rits.cloning.IGeneratedFastCloner";
+
+	// generated cloners of all rounds, written to the service file when processing is over
+	private final Set<String> generated = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		if (roundEnv.processingOver()) {
+			if (!generated.isEmpty()) writeServiceFile();
+			return false;
+		}
+		for (final TypeElement annotation : annotations) {
+			for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() != ElementKind.CLASS && element.getKind() != ElementKind.RECORD) {
+					error(element, "@GenerateCloner applies to classes and records only");
+				} else {
+					generate((TypeElement) element);
+				}
+			}
+		}
+		return true;
+	}
+
+	private void generate(final TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+			error(type, "@GenerateCloner class can't be abstract");
+			return;
+		}
+		for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+			if (e.getModifiers().contains(Modifier.PRIVATE)) {
+				error(type, "@GenerateCloner class can't be private or nested in a private class");
+				return;
+			}
+			if (e.getEnclosingElement().getKind() != ElementKind.PACKAGE && !e.getModifiers().contains(Modifier.STATIC) && e.getKind() == ElementKind.CLASS) {
+				error(type, "@GenerateCloner class can't be an inner class, make it static");
+				return;
+			}
+		}
+
+		final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		final String packageName = pkg.getQualifiedName().toString();
+		final String clonerName = "FastCloner" + nestedName(type);
+		final String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+		final List<String> body = new ArrayList<String>();
+		body.add("final " + typeName + " o = (" + typeName + ") t;");
+		if (type.getKind() == ElementKind.RECORD) {
+			// a record can only be registered in the clones once its components are cloned, so a
+			// component leading back to the record would recurse forever. Such a cycle needs a mutable object.
+			for (final RecordComponentElement component : type.getRecordComponents()) {
+				if (mayReach(component.asType(), type, false, new HashSet<List<Object>>())) {
+					error(type, "@GenerateCloner record can't reach itself, but it may through component " + component.getSimpleName() + " (" + component.asType() + ")");
+					return;
+				}
+			}
+			final StringBuilder args = new StringBuilder();
+			for (final RecordComponentElement component : type.getRecordComponents()) {
+				if (args.length() > 0) args.append(", ");
+				args.append(copy(component.asType(), "o." + component.getAccessor().getSimpleName() + "()"));
+			}
+			body.add("return new " + typeName + "(" + args + ");");
+		} else {
+			if (!hasNoArgsConstructor(type)) {
+				error(type, "@GenerateCloner class needs a non private no-args constructor");
+				return;
+			}
+			body.add("final " + typeName + " c = new " + typeName + "();");
+			body.add("if (clones != null) clones.put(o, c);");
+			for (TypeElement c = type; c != null; c = superclass(c)) {
+				for (final VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+					final Set<Modifier> modifiers = field.getModifiers();
+					if (modifiers.contains(Modifier.STATIC)) continue;
+					final boolean samePackage = processingEnv.getElementUtils().getPackageOf(c).equals(pkg);
+					if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL) || !samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+						error(type, "@GenerateCloner can't access field " + c.getSimpleName() + "." + field.getSimpleName() + ", it must not be final and must be accessible from package " + packageName);
+						return;
+					}
+					final String name = field.getSimpleName().toString();
+					body.add("c." + name + " = " + copy(field.asType(), "o." + name) + ";");
+				}
+			}
+			body.add("return c;");
+		}
+
+		final String qualifiedClonerName = packageName.isEmpty() ? clonerName : packageName + "." + clonerName;
+		try {
+			final Writer writer = processingEnv.getFiler().createSourceFile(qualifiedClonerName, type).openWriter();
+			try {
+				final PrintWriter out = new PrintWriter(writer);
+				if (!packageName.isEmpty()) {
+					out.println("package " + packageName + ";");
+					out.println();
+				}
+				out.println("/**");
+				out.println(" * generated by " + GenerateClonerProcessor.class.getName() + ", clones " + typeName);
+				out.println(" */");
+				out.println("public final class " + clonerName + " implements com.rits.cloning.IGeneratedFastCloner {");
+				out.println("\tpublic Class<?> getClonedClass() {");
+				out.println("\t\treturn " + typeName + ".class;");
+				out.println("\t}");
+				out.println();
+				out.println("\t@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+				out.println("\tpublic Object clone(final Object t, final com.rits.cloning.IDeepCloner cloner, final java.util.Map<Object, Object> clones) {");
+				for (final String line : body) {
+					out.println("\t\t" + line);
+				}
+				out.println("\t}");
+				out.println("}");
+				out.flush();
+			} finally {
+				writer.close();
+			}
+			generated.add(qualifiedClonerName);
+		} catch (final IOException e) {
+			error(type, "can't generate " + qualifiedClonerName + ": " + e);
+		}
+	}
+
+	private static String nestedName(final TypeElement type) {
+		final Element enclosing = type.getEnclosingElement();
+		if (enclosing.getKind() == ElementKind.PACKAGE) return type.getSimpleName().toString();
+		return nestedName((TypeElement) enclosing) + "_" + type.getSimpleName();
+	}
+
+	// primitives are copied, everything else is deep cloned
+	private static String copy(final TypeMirror type, final String value) {
+		if (type.getKind().isPrimitive()) return value;
+		return "cloner.deepClone(" + value + ", clones)";
+	}
+
+	/**
+	 * true if an instance of type may reference, directly or not, an instance of record through a mutable
+	 * object. Only records can't form cycles on their own. Types of the jdk are followed through their type
+	 * arguments only, and Object (or an unbounded type) may reference anything.
+	 *
+	 * @param mutable true if the path from the record to type already goes through a mutable object
+	 */
+	private boolean mayReach(final TypeMirror type, final TypeElement record, final boolean mutable, final Set<List<Object>> visited) {
+		switch (type.getKind()) {
+			case ARRAY:
+				return mayReach(((ArrayType) type).getComponentType(), record, true, visited);
+			case TYPEVAR:
+				final TypeVariable variable = (TypeVariable) type;
+				return visited.add(Arrays.<Object> asList(variable.asElement(), mutable)) && mayReach(variable.getUpperBound(), record, mutable, visited);
+			case WILDCARD:
+				final TypeMirror extendsBound = ((WildcardType) type).getExtendsBound();
+				return extendsBound == null || mayReach(extendsBound, record, mutable, visited);
+			case INTERSECTION:
+				for (final TypeMirror bound : ((IntersectionType) type).getBounds()) {
+					if (mayReach(bound, record, mutable, visited)) return true;
+				}
+				return false;
+			case DECLARED:
+				break;
+			default:
+				return false;
+		}
+		final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+		if (element.equals(record)) return mutable;
+		final String name = element.getQualifiedName().toString();
+		if (name.equals("java.lang.Object")) return true;
+		for (final TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+			// i.e. a List<Foo> may hold a Foo added after the record was created
+			if (mayReach(argument, record, true, visited)) return true;
+		}
+		if (name.startsWith("java.") || name.startsWith("javax.") || !visited.add(Arrays.<Object> asList(element, mutable))) return false;
+		final boolean fieldsMutable = mutable || element.getKind() != ElementKind.RECORD;
+		for (TypeElement c = element; c != null; c = superclass(c)) {
+			for (final VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+				if (!field.getModifiers().contains(Modifier.STATIC) && mayReach(field.asType(), record, fieldsMutable, visited)) return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasNoArgsConstructor(final TypeElement type) {
+		for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) return true;
+		}
+		return false;
+	}
+
+	private static TypeElement superclass(final TypeElement type) {
+		final TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) return null;
+		final TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+		if (element.getQualifiedName().contentEquals("java.lang.Object")) return null;
+		return element;
+	}
+
+	private void writeServiceFile() {
+		try {
+			// cloners generated by earlier, incremental compilations
+			try {
+				final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+				for (final String line : existing.getCharContent(true).toString().split("\n")) {
+					final String name = line.trim();
+					if (!name.isEmpty() && processingEnv.getElementUtils().getTypeElement(name) != null) generated.add(name);
+				}
+			} catch (final IOException e) {
+				// no service file yet
+			}
+			final FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+			final PrintWriter out = new PrintWriter(file.openWriter());
+			try {
+				for (final String name : generated) {
+					out.println(name);
+				}
+			} finally {
+				out.close();
+			}
+		} catch (final IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can't write " + SERVICE + ": " + e);
+		}
+	}
+
+	private void error(final Element element, final String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
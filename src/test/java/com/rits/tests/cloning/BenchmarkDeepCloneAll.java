@@ -0,0 +1,66 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * compares deep cloning many small independent roots one deepClone() at a time with
+ * deepCloneAll() and deepCloneAllParallel()
+ */
+public class BenchmarkDeepCloneAll
+{
+	static class Entry
+	{
+		String		key;
+		long		version;
+		List<Line>	lines	= new ArrayList<Line>();
+	}
+
+	static class Line
+	{
+		int		qty;
+		double	price;
+		String	sku;
+	}
+
+	public static void main(final String[] args)
+	{
+		final int n = 100000;
+		final List<Entry> entries = new ArrayList<Entry>();
+		for (int i = 0; i < n; i++)
+		{
+			final Entry e = new Entry();
+			e.key = "key" + i;
+			e.version = i;
+			for (int j = 0; j < 5; j++)
+			{
+				final Line l = new Line();
+				l.qty = j;
+				l.price = j * 1.5;
+				l.sku = "sku" + j;
+				e.lines.add(l);
+			}
+			entries.add(e);
+		}
+		final Cloner cloner = new Cloner();
+		for (int round = 0; round < 5; round++)
+		{
+			long start = System.nanoTime();
+			final List<Entry> loop = new ArrayList<Entry>(n);
+			for (final Entry e : entries)
+			{
+				loop.add(cloner.deepClone(e));
+			}
+			final long loopTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			cloner.deepCloneAll(entries);
+			final long allTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			cloner.deepCloneAllParallel(entries);
+			final long parallelTime = System.nanoTime() - start;
+			System.out.println("loop=" + loopTime / n + "ns/root, deepCloneAll=" + allTime / n + "ns/root, deepCloneAllParallel=" + parallelTime / n + "ns/root (" + Runtime.getRuntime().availableProcessors() + " cpus)");
+		}
+	}
+}
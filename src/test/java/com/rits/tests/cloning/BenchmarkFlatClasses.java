@@ -0,0 +1,71 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+
+/**
+ * compares cloning of flat classes (only primitive and immutable fields) with and without
+ * the bulk copy fast path
+ */
+public class BenchmarkFlatClasses
+{
+	static class Tick implements Cloneable
+	{
+		int		id		= 1;
+		long	time	= System.currentTimeMillis();
+		double	bid		= 1.2345;
+		double	ask		= 1.2347;
+		float	spread	= 0.0002f;
+		boolean	firm	= true;
+		String	symbol	= "EURUSD";
+		String	venue	= "LMAX";
+		Side	side	= Side.BUY;
+	}
+
+	static class Trade
+	{
+		int		id		= 1;
+		long	time	= System.currentTimeMillis();
+		double	price	= 1.2345;
+		long	qty		= 1000000;
+		String	symbol	= "EURUSD";
+		Side	side	= Side.SELL;
+	}
+
+	enum Side
+	{
+		BUY, SELL
+	}
+
+	public static void main(final String[] args)
+	{
+		final int n = 5000000;
+		final Cloner fieldByField = new Cloner();
+		fieldByField.setBulkCopyFlatClasses(false);
+		final Cloner generated = new Cloner();
+		generated.setGeneratedCloners(true);
+		final Cloner[] cloners = { fieldByField, new Cloner(), generated };
+		final String[] names = { "field by field", "bulk copy", "bulk copy+generated" };
+		final Tick tick = new Tick();
+		final Trade trade = new Trade();
+		for (int round = 0; round < 3; round++)
+		{
+			for (int c = 0; c < cloners.length; c++)
+			{
+				final Cloner cloner = cloners[c];
+				long start = System.nanoTime();
+				for (int i = 0; i < n; i++)
+				{
+					cloner.deepClone(tick);
+				}
+				final long tickTime = System.nanoTime() - start;
+				start = System.nanoTime();
+				for (int i = 0; i < n; i++)
+				{
+					cloner.deepClone(trade);
+				}
+				final long tradeTime = System.nanoTime() - start;
+				System.out.println(names[c] + ": Cloneable=" + tickTime / n + "ns/clone, not Cloneable=" + tradeTime / n + "ns/clone");
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * compares the fast cloners of ArrayDeque, PriorityQueue, EnumMap, EnumSet, IdentityHashMap,
+ * WeakHashMap and BitSet with the reflective cloning of their fields. The collections hold
+ * immutable elements, so the timings are those of cloning the collections themselves.
+ */
+public class BenchmarkJdkCollections
+{
+	public static void main(final String[] args)
+	{
+		final int n = 1000;
+		final ArrayDeque<Integer> deque = new ArrayDeque<Integer>();
+		final PriorityQueue<Integer> queue = new PriorityQueue<Integer>();
+		final IdentityHashMap<Object, Integer> identityMap = new IdentityHashMap<Object, Integer>();
+		final WeakHashMap<String, Integer> weakMap = new WeakHashMap<String, Integer>();
+		// the weak keys must stay reachable
+		final String[] keys = new String[n];
+		final BitSet bits = new BitSet();
+		for (int i = 0; i < n; i++)
+		{
+			keys[i] = "k" + i;
+			deque.add(i);
+			queue.add(i * 7919 % n);
+			identityMap.put(keys[i], i);
+			weakMap.put(keys[i], i);
+			bits.set(i * 3);
+		}
+		final EnumMap<TimeUnit, Integer> enumMap = new EnumMap<TimeUnit, Integer>(TimeUnit.class);
+		for (final TimeUnit unit : TimeUnit.values())
+		{
+			enumMap.put(unit, unit.ordinal());
+		}
+		final EnumSet<TimeUnit> enumSet = EnumSet.of(TimeUnit.SECONDS, TimeUnit.MINUTES);
+
+		final Cloner fast = new Cloner();
+		final Cloner reflective = new Cloner();
+		for (final Class<?> c : new Class<?>[] { ArrayDeque.class, PriorityQueue.class, EnumMap.class, IdentityHashMap.class, WeakHashMap.class, BitSet.class, enumSet.getClass() })
+		{
+			reflective.unregisterFastCloner(c);
+		}
+
+		final Object[] subjects = { deque, queue, enumMap, enumSet, identityMap, weakMap, bits };
+		for (int round = 0; round < 10; round++)
+		{
+			final StringBuilder sb = new StringBuilder();
+			for (final Object subject : subjects)
+			{
+				final int repeat = subject instanceof EnumMap || subject instanceof EnumSet || subject instanceof BitSet ? 100000 : 5000;
+				sb.append(subject.getClass().getSimpleName()).append(": fast=").append(time(fast, subject, repeat)).append("ns, reflective=").append(time(reflective, subject, repeat)).append("ns  ");
+			}
+			System.out.println(sb);
+		}
+		System.out.println(keys.length + " weak keys");
+	}
+
+	private static long time(final Cloner cloner, final Object o, final int repeat)
+	{
+		final long start = System.nanoTime();
+		for (int i = 0; i < repeat; i++)
+		{
+			cloner.deepClone(o);
+		}
+		return (System.nanoTime() - start) / repeat;
+	}
+}
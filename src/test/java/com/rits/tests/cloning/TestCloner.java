@@ -1,8 +1,15 @@
 package com.rits.tests.cloning;
 
+import com.rits.cloning.CloneBudget;
+import com.rits.cloning.CloneSpec;
 import com.rits.cloning.Cloner;
+import com.rits.cloning.CloningException;
 import com.rits.cloning.FastClonerHashMap;
+import com.rits.cloning.IDeepCloner;
+import com.rits.cloning.IFastCloner;
+import com.rits.cloning.IInstantiationStrategy;
 import com.rits.cloning.Immutable;
+import com.rits.cloning.ObjenesisInstantiationStrategy;
 import com.rits.tests.cloning.TestCloner.SynthOuter.Inner;
 import com.rits.tests.cloning.domain.A;
 import com.rits.tests.cloning.domain.B;
@@ -14,7 +21,29 @@ import org.junit.Assert;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
@@ -664,6 +693,554 @@ public class TestCloner extends TestCase {
 		assertEquals(set, clone);
 	}
 
+	public void testSortedCollections() {
+		final Comparator<Holder> byValue = new Comparator<Holder>() {
+			public int compare(final Holder o1, final Holder o2) {
+				return ((Integer) o1.value).compareTo((Integer) o2.value);
+			}
+		};
+		final TreeSet<Holder> treeSet = new TreeSet<Holder>(byValue);
+		final ConcurrentSkipListSet<Holder> skipListSet = new ConcurrentSkipListSet<Holder>(byValue);
+		final ConcurrentSkipListMap<Integer, Holder> skipListMap = new ConcurrentSkipListMap<Integer, Holder>(Collections.reverseOrder());
+		final TreeMap<String, Holder> treeMap = new TreeMap<String, Holder>();
+		for (int i = 0; i < 1000; i++) {
+			final Holder h = new Holder();
+			h.value = i * 7 % 1000;
+			treeSet.add(h);
+			skipListSet.add(h);
+			skipListMap.put(i, h);
+			treeMap.put("k" + i, h);
+		}
+
+		final TreeSet<Holder> treeSetClone = cloner.deepClone(treeSet);
+		assertSame(byValue, treeSetClone.comparator());
+		assertEquals(1000, treeSetClone.size());
+		final ConcurrentSkipListSet<Holder> skipListSetClone = cloner.deepClone(skipListSet);
+		assertEquals(1000, skipListSetClone.size());
+		int expected = 0;
+		final Iterator<Holder> skipListSetIterator = skipListSetClone.iterator();
+		for (final Holder h : treeSetClone) {
+			assertEquals(expected, h.value);
+			assertEquals(expected++, skipListSetIterator.next().value);
+		}
+		final Holder probe = new Holder();
+		probe.value = 500;
+		assertEquals(500, treeSetClone.ceiling(probe).value);
+		assertNotSame(treeSet.ceiling(probe), treeSetClone.ceiling(probe));
+
+		final ConcurrentSkipListMap<Integer, Holder> skipListMapClone = cloner.deepClone(skipListMap);
+		assertEquals(skipListMap.keySet(), skipListMapClone.keySet());
+		assertEquals(Integer.valueOf(999), skipListMapClone.firstKey());
+		assertEquals(skipListMap.get(3).value, skipListMapClone.get(3).value);
+		assertNotSame(skipListMap.get(3), skipListMapClone.get(3));
+
+		final TreeMap<String, Holder> treeMapClone = cloner.deepClone(treeMap);
+		assertEquals(treeMap.keySet(), treeMapClone.keySet());
+		assertEquals("k999", treeMapClone.lastKey());
+		treeMapClone.put("k0000", new Holder());
+		assertEquals("k0000", treeMapClone.higherKey("k0"));
+	}
+
+	public void testObjectArrays() {
+		final Holder h = new Holder();
+		final java.io.Serializable[] strings = {"a", "b", null, 5};
+		final Object[] mixed = {"a", h, null, h, strings, 3L};
+		final Object[] clone = cloner.deepClone(mixed);
+		assertEquals(Object[].class, clone.getClass());
+		assertSame("a", clone[0]);
+		assertNotSame(h, clone[1]);
+		assertSame(clone[1], clone[3]);
+		assertNull(clone[2]);
+		assertNotSame(strings, clone[4]);
+		assertEquals(java.io.Serializable[].class, clone[4].getClass());
+		assertTrue(Arrays.equals(strings, (Object[]) clone[4]));
+		assertSame(mixed[5], clone[5]);
+	}
+
+	public void testMultiDimensionalPrimitiveArrays() {
+		final int[] row = {1, 2, 3};
+		final int[][] matrix = {row, {4, 5}, null, row};
+		final int[][] clone = cloner.deepClone(matrix);
+		assertNotSame(row, clone[0]);
+		assertSame(clone[0], clone[3]);
+		assertNull(clone[2]);
+		assertTrue(Arrays.equals(row, clone[0]));
+		assertTrue(Arrays.equals(matrix[1], clone[1]));
+
+		final double[][][] cube = {{{1.5}, {2.5}}, {{3.5}}};
+		final double[][][] cubeClone = cloner.deepClone(cube);
+		assertNotSame(cube[0][1], cubeClone[0][1]);
+		assertEquals(3.5, cubeClone[1][0][0]);
+
+		final Cloner c = new Cloner();
+		c.dontClone(int[].class);
+		assertSame(row, c.deepClone(matrix)[0]);
+	}
+
+	static class Products extends LinkedList<Holder> {
+		String name;
+		Holder extra;
+	}
+
+	static class Lru extends LinkedHashMap<Object, Holder> {
+		int max;
+
+		Lru(int max) {
+			super(16, 0.75f, true);
+			this.max = max;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, Holder> eldest) {
+			return size() > max;
+		}
+	}
+
+	static class ClonesItself extends HashMap<Object, Object> {
+		@Override
+		public Object clone() {
+			throw new IllegalStateException();
+		}
+	}
+
+	public void testFastClonersForSubclasses() {
+		final Cloner c = new Cloner();
+		c.setFastClonersForSubclasses(true);
+
+		final Products products = new Products();
+		products.name = "p";
+		products.extra = new Holder();
+		products.add(products.extra);
+		products.add(new Holder());
+		final Products productsClone = c.deepClone(products);
+		assertEquals(Products.class, productsClone.getClass());
+		assertEquals(2, productsClone.size());
+		assertSame("p", productsClone.name);
+		assertNotSame(products.extra, productsClone.extra);
+		assertSame(productsClone.extra, productsClone.get(0));
+		productsClone.add(new Holder());
+		assertEquals(2, products.size());
+
+		// keys hashed by identity: the clone is usable only if it was rehashed, i.e. by the fast cloner
+		final Lru lru = new Lru(100);
+		final List<Object> keys = new ArrayList<Object>();
+		for (int i = 0; i < 100; i++) {
+			final Object key = new Holder();
+			keys.add(key);
+			lru.put(key, new Holder());
+		}
+		lru.get(keys.get(0));
+		final Lru lruClone = c.deepClone(lru);
+		assertEquals(100, lruClone.max);
+		assertEquals(100, lruClone.size());
+		for (final Object key : new ArrayList<Object>(lruClone.keySet())) {
+			assertNotNull(lruClone.get(key));
+		}
+		// access order and removeEldestEntry() work on the clone
+		final Object first = lruClone.keySet().iterator().next();
+		lruClone.put(new Holder(), new Holder());
+		assertEquals(100, lruClone.size());
+		assertFalse(lruClone.containsKey(first));
+
+		final ClonesItself clonesItself = new ClonesItself();
+		clonesItself.put("a", new Holder());
+		final ClonesItself clonesItselfClone = c.deepClone(clonesItself);
+		assertNotSame(clonesItself.get("a"), clonesItselfClone.get("a"));
+	}
+
+	static class Registry extends Hashtable<String, Integer> {
+		String name;
+	}
+
+	static class Flags extends EnumMap<Cloner.Traversal, Integer> {
+		Flags() {
+			super(Cloner.Traversal.class);
+		}
+	}
+
+	static class Index extends TreeMap<String, Integer> {
+	}
+
+	static class Tags extends HashSet<String> {
+	}
+
+	static class SortedTags extends TreeSet<String> {
+	}
+
+	static class Settings extends Properties {
+		String name;
+	}
+
+	public void testFastClonersForSubclassesRecreateViews() {
+		final Cloner c = new Cloner();
+		c.setFastClonersForSubclasses(true);
+
+		final Registry registry = new Registry();
+		registry.put("a", 1);
+		// caches the views of the original
+		assertEquals(1, registry.entrySet().size());
+		assertEquals(1, registry.keySet().size());
+		assertEquals(1, registry.values().size());
+		final Registry registryClone = c.deepClone(registry);
+		for (int i = 0; i < 100; i++) {
+			registryClone.put("k" + i, i);
+		}
+		assertEquals(101, registryClone.size());
+		assertEquals(101, registryClone.entrySet().size());
+		assertEquals(101, registryClone.keySet().size());
+		assertEquals(101, registryClone.values().size());
+		assertEquals(1, registry.size());
+
+		final Flags flags = new Flags();
+		flags.put(Cloner.Traversal.RECURSIVE, 1);
+		assertEquals(1, flags.entrySet().size());
+		final Flags flagsClone = c.deepClone(flags);
+		flagsClone.put(Cloner.Traversal.DEPTH_FIRST, 2);
+		assertEquals(2, flagsClone.entrySet().size());
+		assertEquals(2, flagsClone.keySet().size());
+		assertEquals(2, flagsClone.values().size());
+
+		final Index index = new Index();
+		index.put("a", 1);
+		assertEquals(1, index.entrySet().size());
+		assertEquals(1, index.navigableKeySet().size());
+		assertEquals(1, index.descendingMap().size());
+		final Index indexClone = c.deepClone(index);
+		indexClone.put("b", 2);
+		assertEquals(2, indexClone.entrySet().size());
+		assertEquals(2, indexClone.navigableKeySet().size());
+		assertEquals(2, indexClone.descendingMap().size());
+	}
+
+	public void testFastClonersForSubclassesKeepBackingMaps() {
+		final Cloner c = new Cloner();
+		c.setFastClonersForSubclasses(true);
+
+		final Set<String> linked = new LinkedHashSet<String>(Arrays.asList("c", "a", "b"));
+		final Set<String> linkedClone = c.deepClone(linked);
+		assertEquals(LinkedHashSet.class, linkedClone.getClass());
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<String>(linkedClone));
+		linkedClone.add("d");
+		assertEquals(4, linkedClone.size());
+		assertEquals(3, linked.size());
+
+		final Tags tags = new Tags();
+		tags.add("a");
+		final Tags tagsClone = c.deepClone(tags);
+		assertTrue(tagsClone.contains("a"));
+		tagsClone.add("b");
+		assertEquals(2, tagsClone.size());
+		assertEquals(1, tags.size());
+
+		final SortedTags sortedTags = new SortedTags();
+		sortedTags.add("b");
+		sortedTags.add("a");
+		final SortedTags sortedTagsClone = c.deepClone(sortedTags);
+		assertEquals("a", sortedTagsClone.first());
+		sortedTagsClone.add("0");
+		assertEquals("0", sortedTagsClone.first());
+		assertEquals(2, sortedTags.size());
+
+		final Settings settings = new Settings();
+		settings.name = "s";
+		settings.setProperty("a", "1");
+		final Settings settingsClone = c.deepClone(settings);
+		assertEquals(Settings.class, settingsClone.getClass());
+		assertEquals("s", settingsClone.name);
+		assertEquals("1", settingsClone.getProperty("a"));
+		settingsClone.setProperty("b", "2");
+		assertEquals(2, settingsClone.size());
+		assertEquals(2, settingsClone.keySet().size());
+		assertEquals(1, settings.size());
+	}
+
+	public void testMaterializeViews() {
+		final Cloner c = new Cloner();
+		c.setMaterializeViews(true);
+
+		final Map<String, Holder> hashMap = new HashMap<String, Holder>();
+		final TreeMap<String, Holder> treeMap = new TreeMap<String, Holder>(Collections.reverseOrder());
+		for (int i = 0; i < 1000; i++) {
+			final String key = String.format("k%04d", i);
+			hashMap.put(key, new Holder());
+			treeMap.put(key, new Holder());
+		}
+
+		final Set<String> keySet = c.deepClone(hashMap.keySet());
+		assertEquals(HashSet.class, keySet.getClass());
+		assertEquals(hashMap.keySet(), keySet);
+
+		final Collection<Holder> values = c.deepClone(hashMap.values());
+		assertEquals(ArrayList.class, values.getClass());
+		assertEquals(1000, values.size());
+		assertFalse(values.contains(hashMap.get("k0000")));
+
+		final Set<Map.Entry<String, Holder>> entries = c.deepClone(hashMap.entrySet());
+		assertEquals(1000, entries.size());
+		final Map.Entry<String, Holder> entry = entries.iterator().next();
+		assertNotNull(entry.getValue());
+		assertNotSame(hashMap.get(entry.getKey()), entry.getValue());
+		entry.setValue(null);
+		assertNotNull(hashMap.get(entry.getKey()));
+
+		// only the visible part of the map is cloned, keeping the comparator
+		final SortedMap<String, Holder> subMap = c.deepClone(treeMap.subMap("k0100", "k0089"));
+		assertEquals(TreeMap.class, subMap.getClass());
+		assertEquals(11, subMap.size());
+		assertEquals("k0100", subMap.firstKey());
+		assertSame(treeMap.comparator(), subMap.comparator());
+		assertNotSame(treeMap.get("k0100"), subMap.get("k0100"));
+
+		final NavigableSet<String> headKeys = c.deepClone(treeMap.headMap("k0990", false).navigableKeySet());
+		assertEquals(TreeSet.class, headKeys.getClass());
+		assertEquals(9, headKeys.size());
+		assertEquals("k0999", headKeys.first());
+		assertSame(treeMap.comparator(), headKeys.comparator());
+
+		final Set<String> linkedKeys = c.deepClone(new LinkedHashMap<String, Holder>(treeMap).keySet());
+		assertEquals(LinkedHashSet.class, linkedKeys.getClass());
+		assertEquals(new ArrayList<String>(treeMap.keySet()), new ArrayList<String>(linkedKeys));
+
+		final Set<String> concurrentKeys = ConcurrentHashMap.newKeySet();
+		concurrentKeys.addAll(hashMap.keySet());
+		final Set<String> concurrentKeysClone = c.deepClone(concurrentKeys);
+		assertEquals(concurrentKeys, concurrentKeysClone);
+		concurrentKeysClone.add("new");
+		assertFalse(concurrentKeys.contains("new"));
+
+		// the default clones the view together with its map
+		final Set<String> reflectiveKeySet = new Cloner().deepClone(hashMap.keySet());
+		assertNotSame(HashSet.class, reflectiveKeySet.getClass());
+		assertEquals(hashMap.keySet(), reflectiveKeySet);
+	}
+
+	public void testWrapperAndImmutableCollections() {
+		// immutable collections of immutable elements are shared
+		final List<String> strings = List.of("a", "b", "c");
+		assertSame(strings, cloner.deepClone(strings));
+		final Map<String, Integer> counts = Map.of("a", 1, "b", 2);
+		assertSame(counts, cloner.deepClone(counts));
+		assertSame(Collections.emptyList(), cloner.deepClone(Collections.emptyList()));
+		assertSame(Collections.emptyNavigableMap(), cloner.deepClone(Collections.emptyNavigableMap()));
+		final List<String> unmodifiableStrings = Collections.unmodifiableList(strings);
+		assertSame(unmodifiableStrings, cloner.deepClone(unmodifiableStrings));
+
+		// otherwise they are rebuilt from the cloned elements
+		final Holder holder = new Holder();
+		final List<Holder> holders = List.of(holder, new Holder());
+		final List<Holder> holdersClone = cloner.deepClone(holders);
+		assertEquals(holders.getClass(), holdersClone.getClass());
+		assertNotSame(holder, holdersClone.get(0));
+		try {
+			holdersClone.add(holder);
+			fail();
+		} catch (final UnsupportedOperationException e) {
+			// expected
+		}
+		final List<Holder> withNull = java.util.stream.Stream.of(holder, null).toList();
+		final List<Holder> withNullClone = cloner.deepClone(withNull);
+		assertEquals(2, withNullClone.size());
+		assertNull(withNullClone.get(1));
+		final Set<Holder> holderSet = cloner.deepClone(Set.of(holder));
+		assertEquals(1, holderSet.size());
+		assertNotSame(holder, holderSet.iterator().next());
+		final Map<String, Holder> holderMap = cloner.deepClone(Map.of("a", holder, "b", new Holder()));
+		assertEquals(2, holderMap.size());
+		assertNotSame(holder, holderMap.get("a"));
+		final Map<String, Holder> singletonMap = cloner.deepClone(Collections.singletonMap("a", holder));
+		assertNotSame(holder, singletonMap.get("a"));
+		assertEquals(Collections.singletonMap("a", holder).getClass(), singletonMap.getClass());
+		assertNotSame(holder, cloner.deepClone(Collections.singletonList(holder)).get(0));
+
+		// Arrays.asList() is mutable, it is cloned with its array
+		final List<String> asList = Arrays.asList("x", "y");
+		final List<String> asListClone = cloner.deepClone(asList);
+		assertEquals(asList.getClass(), asListClone.getClass());
+		asListClone.set(0, "z");
+		assertEquals("x", asList.get(0));
+
+		// wrappers are re-wrapped around the clone of their collection
+		final ArrayList<Holder> backing = new ArrayList<Holder>(holders);
+		final List<Holder> unmodifiable = Collections.unmodifiableList(backing);
+		final List<Holder> unmodifiableClone = cloner.deepClone(unmodifiable);
+		assertEquals(unmodifiable.getClass(), unmodifiableClone.getClass());
+		backing.add(new Holder());
+		assertEquals(2, unmodifiableClone.size());
+		assertNotSame(holder, unmodifiableClone.get(0));
+
+		final TreeSet<String> sorted = new TreeSet<String>(Collections.reverseOrder());
+		sorted.addAll(strings);
+		final SortedSet<String> unmodifiableSorted = cloner.deepClone(Collections.unmodifiableSortedSet(sorted));
+		assertSame(sorted.comparator(), unmodifiableSorted.comparator());
+		assertEquals("c", unmodifiableSorted.first());
+
+		final Map<String, Holder> synchronizedMap = Collections.synchronizedMap(new HashMap<String, Holder>(holderMap));
+		final Map<String, Holder> synchronizedClone = cloner.deepClone(synchronizedMap);
+		assertEquals(synchronizedMap.getClass(), synchronizedClone.getClass());
+		synchronizedClone.put("c", new Holder());
+		assertEquals(2, synchronizedMap.size());
+
+		final List<Holder> checked = cloner.deepClone(Collections.checkedList(new ArrayList<Holder>(holders), Holder.class));
+		assertEquals(2, checked.size());
+		@SuppressWarnings("unchecked")
+		final List<Object> checkedObjects = (List<Object>) (List<?>) checked;
+		try {
+			checkedObjects.add("not a holder");
+			fail();
+		} catch (final ClassCastException e) {
+			// expected
+		}
+		final Map<String, Holder> checkedMap = cloner.deepClone(Collections.checkedMap(new HashMap<String, Holder>(), String.class, Holder.class));
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> checkedObjectMap = (Map<String, Object>) (Map<String, ?>) checkedMap;
+		try {
+			checkedObjectMap.put("a", "not a holder");
+			fail();
+		} catch (final ClassCastException e) {
+			// expected
+		}
+	}
+
+	public void testConcurrentAndLegacyCollections() throws InterruptedException {
+		final Holder holder = new Holder();
+		final List<Holder> holders = Arrays.asList(holder, new Holder(), holder);
+
+		final CopyOnWriteArrayList<Holder> cowList = new CopyOnWriteArrayList<Holder>(holders);
+		final List<Holder> cowListClone = cloner.deepClone(cowList);
+		assertEquals(cowList.getClass(), cowListClone.getClass());
+		assertEquals(3, cowListClone.size());
+		assertNotSame(holder, cowListClone.get(0));
+		assertSame(cowListClone.get(0), cowListClone.get(2));
+
+		final CopyOnWriteArraySet<Object> cowSet = new CopyOnWriteArraySet<Object>(Arrays.asList("a", "b"));
+		final Set<Object> cowSetClone = cloner.deepClone(cowSet);
+		assertEquals(cowSet, cowSetClone);
+		cowSet.add(holder);
+		final Set<Object> cowSetClone2 = cloner.deepClone(cowSet);
+		assertEquals(3, cowSetClone2.size());
+		assertFalse(cowSetClone2.contains(holder));
+
+		final ConcurrentLinkedDeque<Holder> deque = new ConcurrentLinkedDeque<Holder>(holders);
+		final ConcurrentLinkedDeque<Holder> dequeClone = cloner.deepClone(deque);
+		assertEquals(3, dequeClone.size());
+		assertSame(dequeClone.getFirst(), dequeClone.getLast());
+		assertNotSame(holder, dequeClone.getFirst());
+
+		final LinkedBlockingQueue<Holder> lbq = new LinkedBlockingQueue<Holder>(5);
+		lbq.addAll(holders);
+		final LinkedBlockingQueue<Holder> lbqClone = cloner.deepClone(lbq);
+		assertEquals(3, lbqClone.size());
+		assertEquals(2, lbqClone.remainingCapacity());
+		assertNotSame(holder, lbqClone.take());
+
+		final LinkedBlockingDeque<Holder> lbd = new LinkedBlockingDeque<Holder>(holders);
+		final LinkedBlockingDeque<Holder> lbdClone = cloner.deepClone(lbd);
+		assertEquals(3, lbdClone.size());
+		assertEquals(lbd.remainingCapacity(), lbdClone.remainingCapacity());
+
+		final ArrayBlockingQueue<Holder> abq = new ArrayBlockingQueue<Holder>(4, true, holders);
+		final ArrayBlockingQueue<Holder> abqClone = cloner.deepClone(abq);
+		assertEquals(3, abqClone.size());
+		assertEquals(1, abqClone.remainingCapacity());
+		assertNotSame(holder, abqClone.poll());
+		abqClone.add(new Holder());
+		abqClone.add(new Holder());
+		assertEquals(3, abq.size());
+
+		final Stack<Holder> stack = new Stack<Holder>();
+		stack.addAll(holders);
+		final Stack<Holder> stackClone = cloner.deepClone(stack);
+		assertEquals(Stack.class, stackClone.getClass());
+		assertEquals(3, stackClone.size());
+		assertSame(stackClone.peek(), stackClone.get(0));
+		assertNotSame(holder, stackClone.pop());
+		assertEquals(3, stack.size());
+		final Vector<String> vector = new Vector<String>(Arrays.asList("a", "b"));
+		assertEquals(vector, cloner.deepClone(vector));
+
+		final Hashtable<Object, Holder> table = new Hashtable<Object, Holder>();
+		table.put("a", holder);
+		table.put(holder, holder);
+		final Hashtable<Object, Holder> tableClone = cloner.deepClone(table);
+		assertEquals(2, tableClone.size());
+		final Holder clonedHolder = tableClone.get("a");
+		assertNotSame(holder, clonedHolder);
+		assertSame(clonedHolder, tableClone.get(clonedHolder));
+
+		final Properties defaults = new Properties();
+		defaults.setProperty("d", "1");
+		final Properties properties = new Properties(defaults);
+		properties.setProperty("p", "2");
+		final Properties propertiesClone = cloner.deepClone(properties);
+		assertEquals("2", propertiesClone.getProperty("p"));
+		assertEquals("1", propertiesClone.getProperty("d"));
+		defaults.setProperty("d", "3");
+		assertEquals("1", propertiesClone.getProperty("d"));
+	}
+
+	public void testQueuesEnumCollectionsAndBitSet() {
+		final Holder holder = new Holder();
+
+		final ArrayDeque<Object> deque = new ArrayDeque<Object>(Arrays.asList("a", "b"));
+		final ArrayDeque<Object> dequeClone = cloner.deepClone(deque);
+		assertEquals(Arrays.asList("a", "b"), new ArrayList<Object>(dequeClone));
+		deque.addFirst(holder);
+		final ArrayDeque<Object> dequeClone2 = cloner.deepClone(deque);
+		assertEquals(3, dequeClone2.size());
+		assertNotSame(holder, dequeClone2.peekFirst());
+
+		final PriorityQueue<String> queue = new PriorityQueue<String>(Collections.reverseOrder());
+		for (int i = 0; i < 100; i++) {
+			queue.add("s" + (i * 37 % 100));
+		}
+		final PriorityQueue<String> queueClone = cloner.deepClone(queue);
+		assertSame(queue.comparator(), queueClone.comparator());
+		assertEquals(Arrays.asList(queue.toArray()), Arrays.asList(queueClone.toArray()));
+		while (!queue.isEmpty()) {
+			assertEquals(queue.poll(), queueClone.poll());
+		}
+
+		final EnumMap<TestEnum, Holder> enumMap = new EnumMap<TestEnum, Holder>(TestEnum.class);
+		enumMap.put(TestEnum.A, holder);
+		final EnumMap<TestEnum, Holder> enumMapClone = cloner.deepClone(enumMap);
+		assertEquals(1, enumMapClone.size());
+		assertNotSame(holder, enumMapClone.get(TestEnum.A));
+		assertSame(holder, enumMap.get(TestEnum.A));
+
+		final EnumSet<TestEnum> enumSet = EnumSet.of(TestEnum.A);
+		final EnumSet<TestEnum> enumSetClone = cloner.deepClone(enumSet);
+		assertNotSame(enumSet, enumSetClone);
+		assertEquals(enumSet, enumSetClone);
+
+		// equal keys are distinct keys of an IdentityHashMap, and must stay so in the clone
+		final IdentityHashMap<Object, Object> identityMap = new IdentityHashMap<Object, Object>();
+		identityMap.put(new String("k"), "1");
+		identityMap.put(new String("k"), holder);
+		final IdentityHashMap<Object, Object> identityClone = cloner.deepClone(identityMap);
+		assertEquals(2, identityClone.size());
+		final Holder k = new Holder();
+		identityMap.put(k, k);
+		final IdentityHashMap<Object, Object> identityClone2 = cloner.deepClone(identityMap);
+		assertEquals(3, identityClone2.size());
+		assertFalse(identityClone2.containsKey(k));
+		for (final Map.Entry<Object, Object> e : identityClone2.entrySet()) {
+			if (e.getKey() instanceof Holder) assertSame(e.getKey(), e.getValue());
+		}
+
+		final WeakHashMap<Object, Object> weakMap = new WeakHashMap<Object, Object>();
+		weakMap.put("a", holder);
+		final WeakHashMap<Object, Object> weakClone = cloner.deepClone(weakMap);
+		assertNotSame(holder, weakClone.get("a"));
+
+		final BitSet bits = new BitSet();
+		bits.set(3);
+		bits.set(1000);
+		final BitSet bitsClone = cloner.deepClone(bits);
+		assertEquals(bits, bitsClone);
+		bitsClone.set(5);
+		assertFalse(bits.get(5));
+	}
+
 	public void testEnumIssue9() {
 		final TestEnum original = TestEnum.A;
 		final TestEnum clone = cloner.deepClone(original);
@@ -680,6 +1257,395 @@ public class TestCloner extends TestCase {
 		assertEquals(0, clone.getTime());
 	}
 
+	static class CopiedZone extends SimpleTimeZone {
+		boolean copied;
+
+		CopiedZone() {
+			super(0, "copied");
+		}
+
+		@Override
+		public Object clone() {
+			final CopiedZone copy = (CopiedZone) super.clone();
+			copy.copied = true;
+			return copy;
+		}
+	}
+
+	public void testTemporalTypes() {
+		final TimeZone timeZone = TimeZone.getTimeZone("America/Los_Angeles");
+		final Calendar calendar = Calendar.getInstance(timeZone, Locale.FRANCE);
+		calendar.setLenient(false);
+		calendar.setMinimalDaysInFirstWeek(4);
+		final Calendar calendarClone = cloner.deepClone(calendar);
+		assertEquals(calendar, calendarClone);
+		assertEquals(Calendar.MONDAY, calendarClone.getFirstDayOfWeek());
+		assertEquals(4, calendarClone.getMinimalDaysInFirstWeek());
+		assertFalse(calendarClone.isLenient());
+		assertEquals(timeZone, calendarClone.getTimeZone());
+		assertNotSame(calendar.getTimeZone(), calendarClone.getTimeZone());
+		calendarClone.add(Calendar.DAY_OF_MONTH, 1);
+		assertFalse(calendar.equals(calendarClone));
+
+		final Calendar japanese = Calendar.getInstance(timeZone, new Locale("ja", "JP", "JP"));
+		final Calendar japaneseClone = cloner.deepClone(japanese);
+		assertEquals(japanese.getClass(), japaneseClone.getClass());
+		assertEquals(japanese.get(Calendar.ERA), japaneseClone.get(Calendar.ERA));
+
+		final Cloner sharing = new Cloner();
+		sharing.setShareTimeZones(true);
+		final Holder holder = new Holder();
+		holder.value = timeZone;
+		assertSame(timeZone, sharing.deepClone(holder).value);
+		assertSame(calendar.getTimeZone(), sharing.deepClone(calendar).getTimeZone());
+		assertNotSame(timeZone, cloner.deepClone(holder).value);
+
+		// the zone copied by Calendar.clone() is the clone of the zone, wherever else it's referenced
+		final CopiedZone zone = new CopiedZone();
+		final Object[] calendars = { Calendar.getInstance(zone), Calendar.getInstance(zone), zone };
+		final Object[] calendarsClone = cloner.deepClone(calendars);
+		final TimeZone zoneClone = ((Calendar) calendarsClone[0]).getTimeZone();
+		assertTrue(((CopiedZone) zoneClone).copied);
+		assertSame(zoneClone, ((Calendar) calendarsClone[1]).getTimeZone());
+		assertSame(zoneClone, calendarsClone[2]);
+		assertFalse(zone.copied);
+
+		final java.sql.Timestamp timestamp = new java.sql.Timestamp(123456789L);
+		timestamp.setNanos(987654321);
+		final java.sql.Timestamp timestampClone = cloner.deepClone(timestamp);
+		assertNotSame(timestamp, timestampClone);
+		assertEquals(timestamp, timestampClone);
+		final Date date = new Date(123456789L);
+		final Date dateClone = cloner.deepClone(date);
+		assertEquals(date, dateClone);
+		dateClone.setTime(0);
+		assertEquals(123456789L, date.getTime());
+
+		final java.time.ZonedDateTime now = java.time.ZonedDateTime.now(java.time.ZoneId.of("Europe/Paris"));
+		assertSame(now, cloner.deepClone(now));
+		assertSame(now.getZone(), cloner.deepClone(now.getZone()));
+		final java.time.Duration duration = java.time.Duration.ofSeconds(5);
+		assertSame(duration, cloner.deepClone(duration));
+		final java.time.LocalDate day = java.time.LocalDate.of(2020, 1, 1);
+		assertSame(day, cloner.deepClone(day));
+	}
+
+	public void testAtomicsLocksAndByteBuffers() throws InterruptedException {
+		final AtomicLong atomicLong = new AtomicLong(42);
+		final AtomicLong atomicLongClone = cloner.deepClone(atomicLong);
+		assertEquals(42, atomicLongClone.get());
+		atomicLongClone.incrementAndGet();
+		assertEquals(42, atomicLong.get());
+
+		final Holder holder = new Holder();
+		final AtomicReference<Holder> reference = new AtomicReference<Holder>(holder);
+		final AtomicReference<Holder> referenceClone = cloner.deepClone(reference);
+		assertNotNull(referenceClone.get());
+		assertNotSame(holder, referenceClone.get());
+
+		final AtomicReferenceArray<Holder> array = new AtomicReferenceArray<Holder>(new Holder[]{holder, holder});
+		final AtomicReferenceArray<Holder> arrayClone = cloner.deepClone(array);
+		assertNotSame(holder, arrayClone.get(0));
+		assertSame(arrayClone.get(0), arrayClone.get(1));
+		final AtomicIntegerArray ints = new AtomicIntegerArray(new int[]{1, 2, 3});
+		assertEquals(ints.toString(), cloner.deepClone(ints).toString());
+
+		final LongAdder adder = new LongAdder();
+		adder.add(7);
+		assertEquals(7, cloner.<LongAdder>deepClone(adder).sum());
+
+		// a lock held by another thread is cloned unlocked
+		final ReentrantLock lock = new ReentrantLock(true);
+		final CountDownLatch locked = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final Thread owner = new Thread(() -> {
+			lock.lock();
+			locked.countDown();
+			try {
+				done.await();
+			} catch (final InterruptedException e) {
+				// exit
+			} finally {
+				lock.unlock();
+			}
+		});
+		owner.start();
+		locked.await();
+		final ReentrantLock lockClone = cloner.deepClone(lock);
+		assertTrue(lockClone.isFair());
+		assertFalse(lockClone.isLocked());
+		assertTrue(lockClone.tryLock());
+		done.countDown();
+		owner.join();
+		final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+		rwLock.writeLock().lock();
+		final ReentrantReadWriteLock rwLockClone = cloner.deepClone(rwLock);
+		assertFalse(rwLockClone.isWriteLocked());
+		rwLock.writeLock().unlock();
+
+		for (final java.nio.ByteBuffer buffer : new java.nio.ByteBuffer[]{java.nio.ByteBuffer.allocate(64), java.nio.ByteBuffer.allocateDirect(64)}) {
+			for (int i = 0; i < 64; i++) buffer.put((byte) i);
+			buffer.order(java.nio.ByteOrder.LITTLE_ENDIAN);
+			buffer.position(10).mark().position(20).limit(40);
+			for (final java.nio.ByteBuffer b : new java.nio.ByteBuffer[]{buffer, buffer.asReadOnlyBuffer().order(java.nio.ByteOrder.LITTLE_ENDIAN)}) {
+				final java.nio.ByteBuffer clone = cloner.deepClone(b);
+				assertEquals(b.getClass(), clone.getClass());
+				assertEquals(64, clone.capacity());
+				assertEquals(20, clone.position());
+				assertEquals(40, clone.limit());
+				assertEquals(java.nio.ByteOrder.LITTLE_ENDIAN, clone.order());
+				assertEquals(b, clone);
+				assertEquals(39, clone.get(39));
+				clone.reset();
+				assertEquals(10, clone.position());
+			}
+			final java.nio.ByteBuffer clone = cloner.deepClone(buffer);
+			clone.put(0, (byte) 99);
+			assertEquals(0, buffer.get(0));
+		}
+		// a slice is cloned into a buffer of its own
+		final java.nio.ByteBuffer slice = java.nio.ByteBuffer.wrap(new byte[]{1, 2, 3, 4}, 1, 2).slice();
+		final java.nio.ByteBuffer sliceClone = cloner.deepClone(slice);
+		assertEquals(0, sliceClone.arrayOffset());
+		assertEquals(2, sliceClone.capacity());
+		assertEquals(2, sliceClone.get(0));
+	}
+
+	static class Service {
+		Logger log = Logger.getLogger("service");
+		ExecutorService executor;
+		Thread worker;
+		Object context;
+		ThreadLocal<String> current = new ThreadLocal<String>();
+		Holder state = new Holder();
+	}
+
+	public void testInfrastructureIsShared() {
+		final List<LogRecord> records = new ArrayList<LogRecord>();
+		final Handler handler = new Handler() {
+			public void publish(final LogRecord record) {
+				records.add(record);
+			}
+
+			public void flush() {
+			}
+
+			public void close() {
+			}
+		};
+		final Logger clonerLog = Logger.getLogger(Cloner.class.getName());
+		clonerLog.addHandler(handler);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			final Cloner c = new Cloner();
+			final Service service = new Service();
+			service.executor = executor;
+			service.context = Thread.currentThread();
+			for (int i = 0; i < 2; i++) {
+				final Service clone = c.deepClone(service);
+				assertSame(service.log, clone.log);
+				assertSame(executor, clone.executor);
+				assertSame(service.context, clone.context);
+				assertSame(service.current, clone.current);
+				assertNotSame(service.state, clone.state);
+			}
+			// each field is logged once, and not at all while it's null (worker)
+			assertEquals(4, records.size());
+			assertTrue(records.get(0).getMessage().contains("Service.log"));
+
+			final Cloner cloning = new Cloner();
+			cloning.setShareInfrastructure(false);
+			assertNotSame(service.current, cloning.deepClone(service.current));
+
+			final Cloner custom = new Cloner();
+			custom.registerInfrastructureType(Holder.class);
+			assertSame(service.state, custom.deepClone(service).state);
+
+			// reported by every traversal, by generated copiers and by projections too
+			final Cloner iterative = new Cloner();
+			iterative.setTraversal(Cloner.Traversal.DEPTH_FIRST);
+			final Cloner generated = new Cloner();
+			generated.setGeneratedCloners(true);
+			final Cloner projecting = new Cloner();
+			for (final Cloner cloner : new Cloner[] { iterative, generated, projecting }) {
+				records.clear();
+				final Service clone = cloner == projecting ? cloner.deepClone(service, CloneSpec.all().withMaxDepth(5)) : cloner.deepClone(service);
+				assertSame(service.context, clone.context);
+				assertNotSame(service.state, clone.state);
+				assertEquals(4, records.size());
+				boolean context = false;
+				for (final LogRecord record : records) {
+					context |= record.getMessage().contains("Service.context");
+				}
+				assertTrue(context);
+			}
+		} finally {
+			executor.shutdown();
+			clonerLog.removeHandler(handler);
+		}
+	}
+
+	static class Account {
+		String name = "a";
+		Holder settings = new Holder();
+		Object[] history;
+	}
+
+	public void testCloneBudget() {
+		final Account account = new Account();
+		account.history = new Object[2];
+		final List<Holder> events = new ArrayList<Holder>();
+		for (int i = 0; i < 10000; i++) {
+			events.add(new Holder());
+		}
+		account.history[1] = events;
+
+		final Account clone = cloner.deepClone(account, CloneBudget.unlimited().withMaxObjects(20000));
+		assertNotSame(account.settings, clone.settings);
+		assertEquals(10000, ((List<?>) clone.history[1]).size());
+
+		try {
+			cloner.deepClone(account, CloneBudget.unlimited().withMaxObjects(1000));
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("more than 1000 objects"));
+			assertTrue(e.getMessage(), e.getMessage().contains("Account.history[1] ("));
+		}
+		// the generated copiers must not hide the fields from the budget
+		final Cloner generated = new Cloner();
+		generated.setGeneratedCloners(true);
+		try {
+			generated.deepClone(account, CloneBudget.unlimited().withMaxObjects(1000));
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Account.history[1] ("));
+		}
+
+		try {
+			cloner.deepClone(new byte[1 << 20], CloneBudget.unlimited().withMaxBytes(1 << 16));
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("more than 65536 bytes"));
+		}
+		// a collection is charged before its fast cloner copies it
+		final int[] copies = new int[1];
+		final Cloner counting = new Cloner();
+		counting.unregisterFastCloner(ArrayList.class);
+		counting.registerFastCloner(ArrayList.class, new IFastCloner() {
+			public Object clone(final Object t, final IDeepCloner cloner, final Map<Object, Object> clones) {
+				copies[0]++;
+				return new ArrayList<Object>((List<?>) t);
+			}
+		});
+		final List<Integer> numbers = new ArrayList<Integer>();
+		for (int i = 0; i < 100000; i++) {
+			numbers.add(i);
+		}
+		try {
+			counting.deepClone(numbers, CloneBudget.unlimited().withMaxBytes(1 << 16));
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("more than 65536 bytes"));
+		}
+		assertEquals(0, copies[0]);
+
+		Holder chain = null;
+		for (int i = 0; i < 100; i++) {
+			final Holder h = new Holder();
+			h.value = chain;
+			chain = h;
+		}
+		assertNotNull(cloner.deepClone(chain, CloneBudget.unlimited().withMaxDepth(100)));
+		try {
+			cloner.deepClone(chain, CloneBudget.unlimited().withMaxDepth(99));
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("deeper than 99 objects"));
+			assertTrue(e.getMessage(), e.getMessage().startsWith("clone budget exceeded, deeper than 99 objects. Biggest subtree: Holder.value.value"));
+		}
+		// the cloner is still usable after an aborted clone
+		assertEquals(10000, ((List<?>) cloner.deepClone(account).history[1]).size());
+	}
+
+	public void testCloneSpec() {
+		final Account account = new Account();
+		final Holder first = new Holder();
+		first.value = new Holder();
+		final List<Holder> events = new ArrayList<Holder>();
+		events.add(first);
+		account.history = new Object[] { events, new Holder() };
+
+		// depth 1 is a shallow clone
+		final Account shallow = cloner.deepClone(account, CloneSpec.all().withMaxDepth(1));
+		assertNotSame(account, shallow);
+		assertSame(account.settings, shallow.settings);
+		assertSame(account.history, shallow.history);
+
+		final Account two = cloner.deepClone(account, CloneSpec.all().withMaxDepth(2));
+		assertNotSame(account.history, two.history);
+		assertSame(events, two.history[0]);
+
+		// only along the included paths, and fully at their ends
+		final Account included = cloner.deepClone(account, CloneSpec.all().include("history[*][*]"));
+		assertSame(account.settings, included.settings);
+		final List<?> includedEvents = (List<?>) included.history[0];
+		assertNotSame(events, includedEvents);
+		final Holder includedFirst = (Holder) includedEvents.get(0);
+		assertNotSame(first, includedFirst);
+		assertNotSame(first.value, includedFirst.value);
+		assertNotSame(account.history[1], included.history[1]);
+
+		// the excluded paths are shared
+		final Account excluded = cloner.deepClone(account, CloneSpec.all().exclude("settings", "history[*][*].value"));
+		assertSame(account.settings, excluded.settings);
+		final Holder excludedFirst = (Holder) ((List<?>) excluded.history[0]).get(0);
+		assertNotSame(first, excludedFirst);
+		assertSame(first.value, excludedFirst.value);
+		assertNotSame(account.history[1], excluded.history[1]);
+
+		// an instance is cloned or shared as decided along the first path it's reached by
+		account.history[1] = account.settings;
+		final Account sharedFirst = cloner.deepClone(account, CloneSpec.all().exclude("settings"));
+		assertSame(account.settings, sharedFirst.settings);
+		assertSame(account.settings, sharedFirst.history[1]);
+		final Account clonedFirst = cloner.deepClone(account, CloneSpec.all().include("settings").exclude("history"));
+		assertNotSame(account.settings, clonedFirst.settings);
+		assertSame(account.history, clonedFirst.history);
+
+		// a spec outlives the plans of the cloner
+		final CloneSpec spec = CloneSpec.all().exclude("settings");
+		final Cloner reconfigured = new Cloner();
+		for (int i = 0; i < 2; i++) {
+			final Account clone = reconfigured.deepClone(account, spec);
+			assertSame(account.settings, clone.settings);
+			assertNotSame(account.history, clone.history);
+			reconfigured.setGeneratedCloners(true);
+		}
+
+		// an unrestricted spec is a deep clone
+		final Account full = cloner.deepClone(account, CloneSpec.all());
+		assertNotSame(account.settings, full.settings);
+		assertNotSame(first.value, ((Holder) ((List<?>) full.history[0]).get(0)).value);
+
+		// an overridden fastClone() clones the collections along the included paths
+		final List<Object> replaced = new ArrayList<Object>();
+		final Cloner overriding = new Cloner() {
+			@Override
+			protected Object fastClone(final Object o, final Map<Object, Object> clones) {
+				return o == events ? replaced : super.fastClone(o, clones);
+			}
+		};
+		assertSame(replaced, overriding.deepClone(account, CloneSpec.all().include("history[*]")).history[0]);
+		assertSame(replaced, overriding.deepClone(account, CloneSpec.all().withMaxDepth(3)).history[0]);
+
+		try {
+			CloneSpec.all().include("history[0]");
+			fail();
+		} catch (final IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("history[0]"));
+		}
+	}
+
 	public void testUnregisterFastCloner() {
 		Cloner cloner = new Cloner();
 		cloner.unregisterFastCloner(HashMap.class);
@@ -770,4 +1736,377 @@ public class TestCloner extends TestCase {
 		assertNotSame(list, cloned);
 		assertNotSame(list.peek(), cloned.peek());
 	}
+
+	public void testConfigurationChangeAfterCloning() {
+		final Cloner c = new Cloner();
+		final TransientTest tt = new TransientTest();
+		assertNotNull(c.deepClone(tt).tr1);
+		c.setNullTransient(true);
+		final TransientTest deepClone = c.deepClone(tt);
+		assertNull(deepClone.tr1);
+		assertEquals(0, deepClone.i);
+		assertNotNull(deepClone.nontr);
+		c.setNullTransient(false);
+		assertEquals(5, c.deepClone(tt).i);
+	}
+
+	record Price(String currency, java.math.BigDecimal amount, int scale) {
+	}
+
+	static final class Quote {
+		final String symbol;
+		final Price bid;
+		final Price ask;
+
+		Quote(String symbol, Price bid, Price ask) {
+			this.symbol = symbol;
+			this.bid = bid;
+			this.ask = ask;
+		}
+	}
+
+	static final class MutableQuote {
+		final Price price;
+		int volume;
+
+		MutableQuote(Price price) {
+			this.price = price;
+		}
+	}
+
+	static final class Basket {
+		final List<Price> prices;
+
+		Basket(List<Price> prices) {
+			this.prices = prices;
+		}
+	}
+
+	public void testInferImmutables() {
+		final Cloner c = new Cloner();
+		final Price p = new Price("EUR", new java.math.BigDecimal("1.25"), 2);
+		final Quote q = new Quote("X", p, p);
+		final MutableQuote m = new MutableQuote(p);
+		final Basket b = new Basket(new ArrayList<Price>(Arrays.asList(p)));
+		c.setInferImmutables(true);
+		assertSame(p, c.deepClone(p));
+		assertSame(q, c.deepClone(q));
+		final MutableQuote mClone = c.deepClone(m);
+		assertNotSame(m, mClone);
+		assertSame(p, mClone.price);
+		final Basket bClone = c.deepClone(b);
+		assertNotSame(b, bClone);
+		assertNotSame(b.prices, bClone.prices);
+		assertSame(p, bClone.prices.get(0));
+	}
+
+	static final class Chain {
+		final int value;
+		final Chain next;
+
+		Chain(int value, Chain next) {
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	public void testInferImmutablesRecursiveType() {
+		final Cloner c = new Cloner();
+		c.setInferImmutables(true);
+		final Chain chain = new Chain(1, new Chain(2, null));
+		assertSame(chain, c.deepClone(chain));
+		c.setInferImmutables(false);
+		assertNotSame(chain, c.deepClone(chain));
+		c.setInferImmutables(true);
+		c.nullInsteadOfClone(Chain.class);
+		assertNull(c.deepClone(chain));
+	}
+
+	public void testLinkedHashMapAccessOrder() {
+		final LinkedHashMap<String, Holder> m = new LinkedHashMap<String, Holder>(16, 0.75f, true);
+		m.put("a", new Holder());
+		m.put("b", new Holder());
+		m.put("c", new Holder());
+		m.get("a");
+		final LinkedHashMap<String, Holder> clone = cloner.deepClone(m);
+		assertEquals(Arrays.asList("b", "c", "a"), new ArrayList<String>(clone.keySet()));
+		assertNotSame(m.get("b"), clone.get("b"));
+		// the clone is in access order too
+		clone.get("b");
+		assertEquals(Arrays.asList("c", "a", "b"), new ArrayList<String>(clone.keySet()));
+	}
+
+	public void testHashMapAndSetWithClonedKeys() {
+		final Map<List<String>, Holder> m = new HashMap<List<String>, Holder>();
+		final Set<List<String>> set = new HashSet<List<String>>();
+		for (int i = 0; i < 100; i++) {
+			final List<String> key = new ArrayList<String>(Arrays.asList("k" + i));
+			m.put(key, new Holder());
+			set.add(key);
+		}
+		final Map<List<String>, Holder> clone = cloner.deepClone(m);
+		assertEquals(100, clone.size());
+		for (final Map.Entry<List<String>, Holder> e : clone.entrySet()) {
+			assertNotNull(e.getValue());
+			assertFalse(m.containsValue(e.getValue()));
+			assertSame(e.getValue(), clone.get(new ArrayList<String>(e.getKey())));
+		}
+		final Set<List<String>> setClone = cloner.deepClone(set);
+		assertEquals(set, setClone);
+		for (final List<String> key : setClone) {
+			for (final List<String> original : set) assertNotSame(original, key);
+		}
+	}
+
+	public void testDeepCloneAll() {
+		final Holder shared = new Holder();
+		final List<Holder> roots = new ArrayList<Holder>();
+		for (int i = 0; i < 10; i++) {
+			final Holder h = new Holder();
+			h.value = new Object[]{shared, shared};
+			roots.add(h);
+		}
+		roots.add(null);
+		roots.add(roots.get(0));
+
+		final List<Holder> clones = cloner.deepCloneAll(roots);
+		assertEquals(roots.size(), clones.size());
+		assertNull(clones.get(10));
+		for (int i = 0; i < 10; i++) {
+			final Object[] value = (Object[]) clones.get(i).value;
+			assertNotSame(roots.get(i), clones.get(i));
+			assertNotSame(shared, value[0]);
+			assertSame(value[0], value[1]);
+			if (i > 0) assertNotSame(value[0], ((Object[]) clones.get(i - 1).value)[0]);
+		}
+		// every root is cloned on its own
+		assertNotSame(clones.get(0), clones.get(11));
+
+		final Holder[] array = cloner.deepCloneAll(roots.toArray(new Holder[0]));
+		assertEquals(Holder[].class, array.getClass());
+		assertNotSame(roots.get(3), array[3]);
+		final List<Holder> parallel = cloner.deepCloneAllParallel(roots);
+		for (int i = 0; i < 10; i++) {
+			final Object[] value = (Object[]) parallel.get(i).value;
+			assertNotSame(shared, value[0]);
+			assertSame(value[0], value[1]);
+		}
+		assertTrue(cloner.deepCloneAll(new ArrayList<Object>()).isEmpty());
+	}
+
+	public void testRegistrationsAfterCloning() {
+		final Cloner c = new Cloner();
+		final Holder h = new Holder();
+		h.value = new ArrayList<Object>();
+		assertNotSame(h.value, c.deepClone(h).value);
+		c.registerConstant(h.value);
+		assertSame(h.value, c.deepClone(h).value);
+
+		final Holder other = new Holder();
+		other.value = new Holder();
+		assertNotSame(other.value, c.deepClone(other).value);
+		c.registerFastCloner(Holder.class, new IFastCloner() {
+			public Object clone(Object t, IDeepCloner cloner, Map<Object, Object> clones) {
+				return null; // falls back to field by field cloning
+			}
+		});
+		final Holder clone = c.deepClone(other);
+		assertNotSame(other.value, clone.value);
+		c.unregisterFastCloner(Holder.class);
+		c.dontCloneInstanceOf(Holder.class);
+		assertSame(other, c.deepClone(other));
+	}
+
+	static class FlatCloneable implements Cloneable {
+		int x = 1;
+		final String s;
+		transient long t = 2;
+
+		FlatCloneable(String s) {
+			this.s = s;
+		}
+
+		@Override
+		protected Object clone() {
+			throw new IllegalStateException("Object.clone() should be used");
+		}
+	}
+
+	public void testFlatClassBulkCopy() {
+		final FlatCloneable f = new FlatCloneable("flat");
+		f.x = 10;
+		final FlatCloneable c = cloner.deepClone(f);
+		assertNotSame(f, c);
+		assertEquals(10, c.x);
+		assertSame(f.s, c.s);
+		assertEquals(2, c.t);
+
+		final Cloner nullTransient = new Cloner();
+		nullTransient.setNullTransient(true);
+		final FlatCloneable nc = nullTransient.deepClone(f);
+		assertEquals(10, nc.x);
+		assertEquals(0, nc.t);
+	}
+
+	public void testFlatClassBulkCopyKeepsCustomInstantiation() {
+		final FlatCloneable f = new FlatCloneable("flat");
+		final List<Class<?>> created = new ArrayList<Class<?>>();
+		final Cloner overriding = new Cloner() {
+			@Override
+			protected <T> T newInstance(final Class<T> c) {
+				created.add(c);
+				return super.newInstance(c);
+			}
+		};
+		assertEquals(f.x, overriding.deepClone(f).x);
+		assertEquals(Arrays.<Class<?>> asList(FlatCloneable.class), created);
+
+		created.clear();
+		final Cloner strategy = new Cloner(new IInstantiationStrategy() {
+			public <T> T newInstance(final Class<T> c) {
+				created.add(c);
+				return ObjenesisInstantiationStrategy.getInstance().newInstance(c);
+			}
+		});
+		assertEquals(f.x, strategy.deepClone(f).x);
+		assertEquals(Arrays.<Class<?>> asList(FlatCloneable.class), created);
+	}
+
+	public void testFlatClassSharedInGraph() {
+		final FlatCloneable f = new FlatCloneable("flat");
+		final FlatCloneable[] a = {f, f};
+		final FlatCloneable[] c = cloner.deepClone(a);
+		assertNotSame(f, c[0]);
+		assertSame(c[0], c[1]);
+	}
+
+	static class Holder {
+		Object value;
+	}
+
+	public void testNestedDeepCloneFromFastCloner() {
+		final Cloner cloner = new Cloner();
+		cloner.registerFastCloner(Holder.class, new IFastCloner() {
+			public Object clone(final Object t, final IDeepCloner deepCloner, final Map<Object, Object> clones) {
+				final Holder h = new Holder();
+				// a nested, independent deep clone must not disturb the outer clones table
+				cloner.deepClone(((Holder) t).value);
+				h.value = deepCloner.deepClone(((Holder) t).value, clones);
+				return h;
+			}
+		});
+		final ArrayList<Object> shared = new ArrayList<Object>();
+		final Holder h = new Holder();
+		h.value = shared;
+		final Object[] graph = {shared, h};
+		final Object[] clone = cloner.deepClone(graph);
+		assertNotSame(shared, clone[0]);
+		assertSame(clone[0], ((Holder) clone[1]).value);
+	}
+
+	public void testClonesTableAsMap() {
+		final Cloner cloner = new Cloner();
+		cloner.registerFastCloner(Holder.class, new IFastCloner() {
+			public Object clone(final Object t, final IDeepCloner deepCloner, final Map<Object, Object> clones) {
+				final Map<Object, Object> expected = new IdentityHashMap<Object, Object>(clones);
+				final Random r = new Random(1);
+				final Object[] keys = new Object[500];
+				for (int i = 0; i < keys.length; i++) keys[i] = new Object();
+				for (int i = 0; i < 20000; i++) {
+					final Object k = keys[r.nextInt(keys.length)];
+					if (r.nextInt(3) == 0) {
+						assertEquals(expected.remove(k), clones.remove(k));
+					} else {
+						assertEquals(expected.put(k, i), clones.put(k, i));
+					}
+					assertEquals(expected.size(), clones.size());
+				}
+				for (final Object k : keys) {
+					assertEquals(expected.get(k), clones.get(k));
+					assertEquals(expected.containsKey(k), clones.containsKey(k));
+				}
+				assertEquals(expected.keySet(), new IdentityHashMap<Object, Object>(clones).keySet());
+				return new Holder();
+			}
+		});
+		cloner.deepClone(new Holder[]{new Holder()});
+		// the table is reused by the next clone and must be empty
+		final Object o = new Object();
+		final Object[] graph = {o, o};
+		final Object[] clone = cloner.deepClone(graph);
+		assertNotSame(o, clone[0]);
+		assertSame(clone[0], clone[1]);
+	}
+
+	public void testDeepCloneTree() {
+		final ArrayList<Object> l = new ArrayList<Object>();
+		final Holder h = new Holder();
+		h.value = Calendar.getInstance();
+		l.add(h);
+		l.add(new int[]{1, 2});
+		final ArrayList<Object> clone = cloner.deepCloneTree(l);
+		assertNotSame(l, clone);
+		assertNotSame(h, clone.get(0));
+		assertNotSame(h.value, ((Holder) clone.get(0)).value);
+		assertEquals(h.value, ((Holder) clone.get(0)).value);
+		assertEquals(2, ((int[]) clone.get(1))[1]);
+	}
+
+	public void testDeepCloneTreeSharedReference() {
+		final Holder shared = new Holder();
+		final Holder[] a = {shared, shared};
+		final Holder[] clone = cloner.deepCloneTree(a);
+		assertNotSame(clone[0], clone[1]);
+
+		final Cloner verifying = new Cloner();
+		verifying.setVerifyTrees(true);
+		try {
+			verifying.deepCloneTree(a);
+			fail("shared reference not detected");
+		} catch (final CloningException e) {
+			// expected
+		}
+		verifying.deepCloneTree(new Holder[]{shared, new Holder()});
+	}
+
+	public void testDeepCloneTreeCycle() {
+		final Holder h = new Holder();
+		h.value = h;
+		try {
+			cloner.deepCloneTree(h);
+			fail("cycle not detected");
+		} catch (final CloningException e) {
+			// expected
+		}
+	}
+
+	public void testDeepCloneTreeCycleIterative() {
+		final Holder h = new Holder();
+		h.value = h;
+		final ArrayList<Object> l = new ArrayList<Object>();
+		l.add(l);
+		for (final Cloner.Traversal traversal : Cloner.Traversal.values()) {
+			final Cloner cloner = new Cloner();
+			cloner.setTraversal(traversal);
+			cloner.setMaxTreeObjects(1000);
+			for (final Object cycle : new Object[]{h, l}) {
+				try {
+					cloner.deepCloneTree(cycle);
+					fail("cycle not detected with " + traversal);
+				} catch (final CloningException e) {
+					// expected
+				}
+			}
+		}
+
+		final Cloner bounded = new Cloner();
+		bounded.setMaxTreeObjects(3);
+		assertEquals(2, bounded.deepCloneTree(new Holder[]{new Holder(), new Holder()}).length);
+		try {
+			bounded.deepCloneTree(new Holder[]{new Holder(), new Holder(), new Holder()});
+			fail();
+		} catch (final CloningException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("more than 3 objects"));
+		}
+	}
 }
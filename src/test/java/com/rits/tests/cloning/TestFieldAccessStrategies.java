@@ -0,0 +1,106 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+import com.rits.cloning.ObjenesisInstantiationStrategy;
+import com.rits.cloning.VarHandleFieldAccessStrategy;
+import com.rits.tests.cloning.domain.A;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * tests cloning with the VarHandle field access strategy
+ */
+public class TestFieldAccessStrategies extends TestCase {
+	private final Cloner cloner = new Cloner(ObjenesisInstantiationStrategy.getInstance(), VarHandleFieldAccessStrategy.getInstance());
+
+	static class Quote {
+		private int size = 1;
+		private long time = 2L;
+		private double bid = 3.5d;
+		private float spread = 0.5f;
+		private boolean firm = true;
+		private byte venue = 4;
+		private short flags = 5;
+		private char side = 'B';
+		private final String symbol;
+		private Date date = new Date(1000);
+		private final List<Quote> legs = new ArrayList<Quote>();
+
+		Quote(final String symbol) {
+			this.symbol = symbol;
+		}
+	}
+
+	static class SubQuote extends Quote {
+		private int extra = 9;
+
+		SubQuote() {
+			super("sub");
+		}
+	}
+
+	public void testPrimitivesAndReferences() {
+		final Quote q = new Quote("EURUSD");
+		q.size = 100;
+		q.time = Long.MIN_VALUE;
+		q.bid = 1.2345d;
+		q.spread = 0.0001f;
+		q.firm = false;
+		q.venue = -1;
+		q.flags = Short.MAX_VALUE;
+		q.side = 'S';
+		q.legs.add(new Quote("EUR"));
+
+		final Quote c = cloner.deepClone(q);
+		assertNotSame(q, c);
+		assertEquals(100, c.size);
+		assertEquals(Long.MIN_VALUE, c.time);
+		assertEquals(1.2345d, c.bid);
+		assertEquals(0.0001f, c.spread);
+		assertFalse(c.firm);
+		assertEquals(-1, c.venue);
+		assertEquals(Short.MAX_VALUE, c.flags);
+		assertEquals('S', c.side);
+		assertSame(q.symbol, c.symbol);
+		assertNotSame(q.date, c.date);
+		assertEquals(q.date, c.date);
+		assertNotSame(q.legs, c.legs);
+		assertEquals("EUR", c.legs.get(0).symbol);
+	}
+
+	public void testInheritance() {
+		final SubQuote q = new SubQuote();
+		q.extra = 10;
+		((Quote) q).size = 11;
+		final SubQuote c = cloner.deepClone(q);
+		assertEquals(10, c.extra);
+		assertEquals(11, ((Quote) c).size);
+		assertEquals("sub", ((Quote) c).symbol);
+	}
+
+	public void testOtherPackage() {
+		final A a = new A();
+		a.setX(7);
+		assertEquals(a, cloner.deepClone(a));
+	}
+
+	public void testShallowClone() {
+		final Quote q = new Quote("EURUSD");
+		final Quote c = cloner.shallowClone(q);
+		assertNotSame(q, c);
+		assertSame(q.date, c.date);
+		assertEquals(q.bid, c.bid);
+	}
+
+	public void testTransientNull() {
+		final Cloner c = new Cloner(ObjenesisInstantiationStrategy.getInstance(), VarHandleFieldAccessStrategy.getInstance());
+		c.setNullTransient(true);
+		final TransientTest deepClone = c.deepClone(new TransientTest());
+		assertNull(deepClone.tr1);
+		assertEquals(0, deepClone.i);
+		assertNotNull(deepClone.nontr);
+	}
+}
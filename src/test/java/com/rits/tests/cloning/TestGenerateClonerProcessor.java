@@ -0,0 +1,121 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+import com.rits.cloning.GenerateCloner;
+import com.rits.cloning.processor.GenerateClonerProcessor;
+import junit.framework.TestCase;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * tests the fast cloners generated by GenerateClonerProcessor during the test compilation, and the
+ * classes the processor rejects
+ */
+public class TestGenerateClonerProcessor extends TestCase {
+	private final Cloner cloner = new Cloner();
+
+	@GenerateCloner
+	record Point(int x, int y, List<String> labels) {
+	}
+
+	static class Shape {
+		int id;
+		List<Point> points = new ArrayList<Point>();
+	}
+
+	@GenerateCloner
+	static class Polygon extends Shape {
+		String name;
+		Polygon parent;
+		double[] weights;
+	}
+
+	public void testClonersAreGenerated() throws ClassNotFoundException {
+		Class.forName("com.rits.tests.cloning.FastClonerTestGenerateClonerProcessor_Point");
+		Class.forName("com.rits.tests.cloning.FastClonerTestGenerateClonerProcessor_Polygon");
+	}
+
+	public void testRecord() {
+		final List<String> labels = new ArrayList<String>();
+		labels.add("a");
+		final Point p = new Point(1, 2, labels);
+		// records' final fields can't be set via reflection, so this uses the generated cloner
+		final Point clone = cloner.deepClone(p);
+		assertNotSame(p, clone);
+		assertEquals(p, clone);
+		assertNotSame(labels, clone.labels());
+	}
+
+	public void testClass() {
+		final Polygon polygon = new Polygon();
+		polygon.id = 5;
+		polygon.name = "triangle";
+		polygon.parent = polygon;
+		polygon.weights = new double[]{1.5, 2.5};
+		polygon.points.add(new Point(0, 0, new ArrayList<String>()));
+
+		final Polygon clone = cloner.deepClone(polygon);
+		assertNotSame(polygon, clone);
+		assertEquals(5, clone.id);
+		assertSame(polygon.name, clone.name);
+		assertSame(clone, clone.parent);
+		assertNotSame(polygon.weights, clone.weights);
+		assertEquals(2.5, clone.weights[1]);
+		assertNotSame(polygon.points, clone.points);
+		assertEquals(polygon.points, clone.points);
+	}
+
+	public void testIterativeTraversal() {
+		final Polygon polygon = new Polygon();
+		polygon.parent = polygon;
+		cloner.setTraversal(Cloner.Traversal.BREADTH_FIRST);
+		final Polygon clone = cloner.deepClone(polygon);
+		assertSame(clone, clone.parent);
+	}
+
+	public void testRecordReachingItself() throws IOException {
+		final String errors = process("record Looped(String name, Holder holder) {}\n"
+				+ "class Holder { Object value; }");
+		assertTrue(errors, errors.contains("can't reach itself, but it may through component holder"));
+		assertTrue(process("record Listed(java.util.List<Listed> next) {}").contains("component next"));
+		// only records can't form a cycle
+		assertEquals("", process("record Chained(String name, Chained next, java.util.List<String> tags) {}"));
+	}
+
+	// runs the processor on a source annotated with @GenerateCloner, returns its errors
+	private static String process(final String declarations) throws IOException {
+		final String source = "import com.rits.cloning.GenerateCloner;\n@GenerateCloner\n" + declarations;
+		final JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Sample.java"), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+		final File out = Files.createTempDirectory(Paths.get("target"), "processor").toFile();
+		final String classpath = new File(GenerateCloner.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		final JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, Arrays.asList("-proc:only", "-classpath", classpath, "-d", out.getPath(), "-s", out.getPath()), null, Collections.singletonList(file));
+		task.setProcessors(Collections.singletonList(new GenerateClonerProcessor()));
+		task.call();
+		final StringBuilder errors = new StringBuilder();
+		for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.ERROR) errors.append(diagnostic.getMessage(null));
+		}
+		return errors.toString();
+	}
+}
@@ -0,0 +1,121 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+import com.rits.tests.cloning.domain.A;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * tests cloning with the field copiers generated at runtime, see Cloner.setGeneratedCloners()
+ */
+public class TestGeneratedFieldCopiers extends TestCase {
+	private final Cloner cloner = new Cloner();
+
+	{
+		cloner.setGeneratedCloners(true);
+	}
+
+	static class Primitives {
+		private boolean z = true;
+		private byte b = 1;
+		private char c = 'c';
+		private short s = 2;
+		private int i = 3;
+		private long l = 4L;
+		private float f = 5.5f;
+		private double d = 6.5d;
+		private String str = "str";
+	}
+
+	static class Base {
+		private int baseX = 7;
+		protected Calendar cal = Calendar.getInstance();
+	}
+
+	static class Node extends Base {
+		private final String name;
+		private final List<Object> children = new ArrayList<Object>();
+		private Node parent;
+		private int[] ints = {1, 2, 3};
+		private Node[] siblings;
+
+		Node(final String name) {
+			this.name = name;
+		}
+	}
+
+	public void testPrimitivesAndImmutables() {
+		final Primitives p = new Primitives();
+		p.z = false;
+		p.b = 11;
+		p.c = 'x';
+		p.s = 12;
+		p.i = 13;
+		p.l = Long.MAX_VALUE;
+		p.f = 14.5f;
+		p.d = Double.MIN_VALUE;
+		p.str = "changed";
+		final Primitives c = cloner.deepClone(p);
+		assertNotSame(p, c);
+		assertEquals(p.z, c.z);
+		assertEquals(p.b, c.b);
+		assertEquals(p.c, c.c);
+		assertEquals(p.s, c.s);
+		assertEquals(p.i, c.i);
+		assertEquals(p.l, c.l);
+		assertEquals(p.f, c.f);
+		assertEquals(p.d, c.d);
+		assertSame(p.str, c.str);
+	}
+
+	public void testGraph() {
+		final Node root = new Node("root");
+		final Node child = new Node("child");
+		child.parent = root;
+		root.children.add(child);
+		root.siblings = new Node[]{child, root};
+		root.cal.setTimeInMillis(1000);
+
+		final Node clone = cloner.deepClone(root);
+		assertNotSame(root, clone);
+		assertEquals("root", clone.name);
+		assertEquals(7, ((Base) clone).baseX);
+		assertNotSame(root.cal, clone.cal);
+		assertEquals(1000, clone.cal.getTimeInMillis());
+		assertNotSame(root.ints, clone.ints);
+		assertEquals(3, clone.ints[2]);
+		final Node clonedChild = (Node) clone.children.get(0);
+		assertNotSame(child, clonedChild);
+		assertSame(clone, clonedChild.parent);
+		assertSame(clonedChild, clone.siblings[0]);
+		assertSame(clone, clone.siblings[1]);
+	}
+
+	public void testOtherPackage() {
+		final A a = new A();
+		a.setX(42);
+		final A clone = cloner.deepClone(a);
+		assertNotSame(a, clone);
+		assertEquals(42, clone.getX());
+	}
+
+	public void testShallowClone() {
+		final Node root = new Node("root");
+		final Node clone = cloner.shallowClone(root);
+		assertNotSame(root, clone);
+		assertSame(root.cal, clone.cal);
+		assertSame(root.children, clone.children);
+	}
+
+	public void testDisabledAfterUse() {
+		final Node root = new Node("root");
+		cloner.deepClone(root);
+		cloner.setGeneratedCloners(false);
+		final Node clone = cloner.deepClone(root);
+		assertNotSame(root.cal, clone.cal);
+		assertEquals(root.cal, clone.cal);
+	}
+}
@@ -0,0 +1,180 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * tests deep clones with parallel cloning of big collections and arrays
+ */
+public class TestParallelCloning extends TestCase {
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+	private final Cloner cloner = new Cloner();
+
+	{
+		cloner.setForkJoinPool(pool);
+		cloner.setParallelThreshold(300);
+	}
+
+	@Override
+	protected void tearDown() {
+		pool.shutdown();
+	}
+
+	static class Item {
+		int id;
+		Item shared;
+		Object owner;
+
+		Item(int id) {
+			this.id = id;
+		}
+	}
+
+	public void testListWithSharedReferences() {
+		final Item shared = new Item(-1);
+		final Item root = new Item(-2);
+		final List<Item> items = new ArrayList<Item>();
+		for (int i = 0; i < 10000; i++) {
+			final Item item = new Item(i);
+			item.shared = shared;
+			item.owner = root;
+			items.add(item);
+		}
+		// a cycle
+		root.owner = items.get(5000);
+		// the same instances twice, far apart so that different tasks clone them
+		items.addAll(new ArrayList<Item>(items));
+
+		final List<Item> clone = cloner.deepClone(items);
+		assertEquals(20000, clone.size());
+		final Item clonedShared = clone.get(0).shared;
+		assertNotSame(shared, clonedShared);
+		final Item clonedRoot = (Item) clone.get(0).owner;
+		assertSame(clone.get(5000), clonedRoot.owner);
+		final Map<Item, Boolean> distinct = new IdentityHashMap<Item, Boolean>();
+		for (int i = 0; i < 10000; i++) {
+			final Item c = clone.get(i);
+			assertEquals(i, c.id);
+			assertNotSame(items.get(i), c);
+			assertSame(c, clone.get(i + 10000));
+			assertSame(clonedShared, c.shared);
+			assertSame(clonedRoot, c.owner);
+			distinct.put(c, true);
+		}
+		assertEquals(10000, distinct.size());
+	}
+
+	public void testMapAndArrays() {
+		final Map<Item, Item[]> map = new HashMap<Item, Item[]>();
+		final Item[] array = new Item[1000];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = new Item(i);
+			array[i].shared = array[(i * 7) % (i + 1)];
+		}
+		for (int i = 0; i < 500; i++) {
+			map.put(array[i], array);
+		}
+
+		final Map<Item, Item[]> clone = cloner.deepClone(map);
+		assertEquals(500, clone.size());
+		Item[] clonedArray = null;
+		for (final Map.Entry<Item, Item[]> e : clone.entrySet()) {
+			if (clonedArray == null) clonedArray = e.getValue();
+			assertSame(clonedArray, e.getValue());
+			assertSame(e.getKey(), clonedArray[e.getKey().id]);
+		}
+		assertNotSame(array, clonedArray);
+		for (int i = 0; i < array.length; i++) {
+			assertEquals(i, clonedArray[i].id);
+			assertSame(clonedArray[(i * 7) % (i + 1)], clonedArray[i].shared);
+		}
+	}
+
+	public void testNestedBigCollections() {
+		final List<List<Item>> lists = new ArrayList<List<Item>>();
+		for (int i = 0; i < 400; i++) {
+			final List<Item> l = new ArrayList<Item>();
+			for (int j = 0; j < 400; j++) l.add(new Item(j));
+			lists.add(l);
+		}
+		final List<List<Item>> clone = cloner.deepClone(lists);
+		assertEquals(400, clone.size());
+		for (int i = 0; i < 400; i++) {
+			assertNotSame(lists.get(i), clone.get(i));
+			assertEquals(399, clone.get(i).get(399).id);
+		}
+	}
+
+	public void testBelowThreshold() {
+		final List<Item> items = new ArrayList<Item>();
+		items.add(new Item(1));
+		items.add(items.get(0));
+		final List<Item> clone = cloner.deepClone(items);
+		assertSame(clone.get(0), clone.get(1));
+		assertNotSame(items.get(0), clone.get(0));
+	}
+
+	static class Key {
+		String name;
+
+		Key(final String name) {
+			this.name = name;
+		}
+
+		@Override
+		public int hashCode() {
+			return name == null ? 0 : name.hashCode();
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Key && name != null && name.equals(((Key) o).name);
+		}
+	}
+
+	static class SetHolder {
+		Set<Key> set = new HashSet<Key>();
+		Map<Key, Integer> map = new HashMap<Key, Integer>();
+		TreeMap<String, Key> sorted = new TreeMap<String, Key>();
+	}
+
+	public void testSharedKeysAreFilledBeforeBeingHashed() {
+		final Cloner cloner = new Cloner();
+		cloner.setForkJoinPool(pool);
+		cloner.setParallelThreshold(2);
+		final Key[] keys = new Key[50];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = new Key("key" + i);
+		}
+		final List<SetHolder> holders = new ArrayList<SetHolder>();
+		for (int i = 0; i < 4000; i++) {
+			final SetHolder holder = new SetHolder();
+			final Key key = keys[i % keys.length];
+			holder.set.add(key);
+			holder.map.put(key, i);
+			holder.sorted.put(key.name, key);
+			holders.add(holder);
+		}
+		for (int run = 0; run < 5; run++) {
+			final List<SetHolder> clone = cloner.deepClone(holders);
+			for (int i = 0; i < clone.size(); i++) {
+				final SetHolder holder = clone.get(i);
+				final Key key = holder.set.iterator().next();
+				assertNotSame(keys[i % keys.length], key);
+				assertTrue(holder.set.contains(key));
+				assertEquals(Integer.valueOf(i), holder.map.get(key));
+				assertSame(key, holder.sorted.get(key.name));
+			}
+		}
+	}
+}
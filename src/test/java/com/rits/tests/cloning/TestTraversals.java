@@ -0,0 +1,143 @@
+package com.rits.tests.cloning;
+
+import com.rits.cloning.Cloner;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * tests the iterative (depth and breadth first) traversals
+ */
+public class TestTraversals extends TestCase {
+	static class Link {
+		int id;
+		Link next;
+		Object payload;
+
+		@Override
+		public boolean equals(final Object o) {
+			return o instanceof Link && ((Link) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id;
+		}
+	}
+
+	static class Root {
+		Link first;
+		Set<Link> set = new HashSet<Link>();
+		List<Object> list = new ArrayList<Object>();
+		Object[] array;
+	}
+
+	private static Link chain(final int length) {
+		final Link first = new Link();
+		Link l = first;
+		for (int i = 1; i < length; i++) {
+			l.next = new Link();
+			l.next.id = i;
+			l = l.next;
+		}
+		return first;
+	}
+
+	private static Cloner cloner(final Cloner.Traversal traversal) {
+		final Cloner cloner = new Cloner();
+		cloner.setTraversal(traversal);
+		return cloner;
+	}
+
+	public void testLongChain() {
+		final Link first = chain(200000);
+		for (final Cloner.Traversal traversal : new Cloner.Traversal[]{Cloner.Traversal.DEPTH_FIRST, Cloner.Traversal.BREADTH_FIRST}) {
+			final Link clone = cloner(traversal).deepClone(first);
+			Link l = first;
+			Link c = clone;
+			while (l != null) {
+				assertNotSame(l, c);
+				assertEquals(l.id, c.id);
+				l = l.next;
+				c = c.next;
+			}
+			assertNull(c);
+		}
+	}
+
+	public void testSharedAndCyclic() {
+		for (final Cloner.Traversal traversal : Cloner.Traversal.values()) {
+			final Root root = new Root();
+			root.first = chain(10);
+			root.first.payload = root;
+			Link l = root.first;
+			while (l.next != null) l = l.next;
+			l.next = root.first; // cycle
+			root.set.add(root.first.next);
+			root.list.add(root.first);
+			root.array = new Object[]{root.first.next, root.list, "s"};
+
+			final Root clone = cloner(traversal).deepClone(root);
+			assertNotSame(root, clone);
+			assertSame(clone, clone.first.payload);
+			assertSame(clone.first, clone.list.get(0));
+			assertSame(clone.first.next, clone.array[0]);
+			assertSame(clone.list, clone.array[1]);
+			assertSame("s", clone.array[2]);
+			assertTrue(clone.set.contains(clone.first.next));
+			assertSame(clone.first.next, clone.set.iterator().next());
+			Link c = clone.first;
+			for (int i = 0; i < 10; i++) c = c.next;
+			assertSame(clone.first, c);
+		}
+	}
+
+	/**
+	 * the hash of an element depends on an object that is queued but not yet filled when the set is cloned
+	 */
+	public void testHashedElementsAreComplete() {
+		for (final Cloner.Traversal traversal : Cloner.Traversal.values()) {
+			final Root root = new Root();
+			final Link element = new Link();
+			element.id = 42;
+			root.first = element;
+			root.set.add(element);
+			final Root clone = cloner(traversal).deepClone(root);
+			assertTrue(clone.set.contains(clone.first));
+			assertEquals(42, clone.first.id);
+		}
+	}
+
+	public void testFastCloneOverride() {
+		for (final Cloner.Traversal traversal : Cloner.Traversal.values()) {
+			final Cloner cloner = new Cloner() {
+				@Override
+				protected Object fastClone(final Object o, final Map<Object, Object> clones) {
+					if (o instanceof Link && ((Link) o).id < 0) {
+						final Link link = new Link();
+						link.id = -((Link) o).id;
+						return link;
+					}
+					if (o instanceof ArrayList) return new ArrayList<Object>();
+					return super.fastClone(o, clones);
+				}
+			};
+			cloner.setTraversal(traversal);
+			final Root root = new Root();
+			root.first = chain(3);
+			root.first.next.id = -7;
+			root.list.add("dropped");
+			root.set.add(root.first);
+			final Root clone = cloner.deepClone(root);
+			assertEquals(7, clone.first.next.id);
+			assertNull(clone.first.next.next);
+			assertTrue(clone.list.isEmpty());
+			assertEquals(1, clone.set.size());
+			assertNotSame(root.first, clone.set.iterator().next());
+		}
+	}
+}